@@ -0,0 +1,190 @@
+package com.shophub.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Small in-process LRU cache with a size bound and per-entry expiry.
+ * <p>
+ * Loads run outside the lock; a load that races with an invalidation is
+ * returned to its caller but not cached, so writers never get overwritten
+ * by a stale read that started before them.
+ */
+public class BoundedTtlCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public BoundedTtlCache(String name, int maxSize, long ttlMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > BoundedTtlCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public V get(K key) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    hits.increment();
+                    return entry.value;
+                }
+                entries.remove(key);
+                expirations.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public V getOrLoad(K key, Function<K, V> loader) {
+        V cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadGeneration;
+        synchronized (this) {
+            loadGeneration = generation;
+        }
+
+        V loaded = loader.apply(key);
+        if (loaded != null) {
+            synchronized (this) {
+                if (generation == loadGeneration) {
+                    entries.put(key, new Entry<>(loaded, System.currentTimeMillis() + ttlMillis));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Cached values for the keys; the misses are handed to the loader in one call.
+     * Loaded values go through the same invalidation guard as {@link #getOrLoad}.
+     */
+    public Map<K, V> getAllOrLoad(Collection<K> keys, Function<List<K>, Map<K, V>> loader) {
+        Map<K, V> found = new HashMap<>();
+        List<K> missing = new ArrayList<>();
+        for (K key : keys) {
+            V cached = get(key);
+            if (cached != null) {
+                found.put(key, cached);
+            } else {
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        long loadGeneration;
+        synchronized (this) {
+            loadGeneration = generation;
+        }
+
+        Map<K, V> loaded = loader.apply(missing);
+        synchronized (this) {
+            boolean current = generation == loadGeneration;
+            long expiresAt = System.currentTimeMillis() + ttlMillis;
+            for (Map.Entry<K, V> entry : loaded.entrySet()) {
+                if (entry.getValue() == null) {
+                    continue;
+                }
+                if (current) {
+                    entries.put(entry.getKey(), new Entry<>(entry.getValue(), expiresAt));
+                }
+                found.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return found;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, System.currentTimeMillis() + ttlMillis);
+    }
+
+    public synchronized void put(K key, V value, long expiresAtMillis) {
+        if (value == null) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, Math.min(expiresAtMillis, System.currentTimeMillis() + ttlMillis)));
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateIf(Predicate<K> predicate) {
+        generation++;
+        Iterator<K> it = entries.keySet().iterator();
+        while (it.hasNext()) {
+            if (predicate.test(it.next())) {
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(
+                name,
+                size(),
+                maxSize,
+                hits.sum(),
+                misses.sum(),
+                evictions.sum(),
+                expirations.sum()
+        );
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
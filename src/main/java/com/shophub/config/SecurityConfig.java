@@ -45,6 +45,10 @@ public class SecurityConfig {
                     "/api/checkout/guest"
                 ).permitAll()
 
+                // Uploaded images (public, cached by browsers)
+                .requestMatchers(HttpMethod.GET, "/uploads/**").permitAll()
+                .requestMatchers(HttpMethod.HEAD, "/uploads/**").permitAll()
+
                 // Categories
                 .requestMatchers(HttpMethod.GET, "/api/categories/**").permitAll()
                 .requestMatchers(HttpMethod.POST, "/api/categories/**").hasRole("ADMIN")
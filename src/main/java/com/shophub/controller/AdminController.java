@@ -1,9 +1,19 @@
 package com.shophub.controller;
 
+import com.shophub.cache.CacheStats;
+import com.shophub.dto.MailTransportStats;
+import com.shophub.dto.UploadServingStats;
+import com.shophub.model.EmailOutboxStatus;
 import com.shophub.model.Product;
+import com.shophub.security.AuthenticatedPrincipalCache;
+import com.shophub.security.JwtTokenProvider;
 import com.shophub.service.AdminAuditService;
 import com.shophub.service.AdminActionTokenService;
+import com.shophub.service.CatalogCache;
+import com.shophub.service.EmailOutboxWorker;
+import com.shophub.service.MailTransport;
 import com.shophub.service.ProductService;
+import com.shophub.service.UploadServingService;
 import com.shophub.service.UserService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
@@ -19,6 +29,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.security.Principal;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -29,6 +40,12 @@ public class AdminController {
     private final AdminActionTokenService adminActionTokenService;
     private final UserService userService;
     private final ProductService productService;
+    private final CatalogCache catalogCache;
+    private final JwtTokenProvider jwtTokenProvider;
+    private final AuthenticatedPrincipalCache principalCache;
+    private final EmailOutboxWorker emailOutboxWorker;
+    private final MailTransport mailTransport;
+    private final UploadServingService uploadServingService;
 
     @GetMapping("/test")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
@@ -69,6 +86,39 @@ public class AdminController {
         return ResponseEntity.ok(productService.getAllProductsAdmin());
     }
 
+    @GetMapping("/cache/catalog")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<List<CacheStats>> getCatalogCacheStats() {
+        return ResponseEntity.ok(catalogCache.stats());
+    }
+
+    @GetMapping("/cache/auth")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<List<CacheStats>> getAuthCacheStats() {
+        return ResponseEntity.ok(List.of(
+                jwtTokenProvider.verifiedTokenCacheStats(),
+                principalCache.stats()
+        ));
+    }
+
+    @GetMapping("/email-outbox")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Map<EmailOutboxStatus, Long>> getEmailOutboxCounts() {
+        return ResponseEntity.ok(emailOutboxWorker.countsByStatus());
+    }
+
+    @GetMapping("/email-outbox/transport")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<MailTransportStats> getMailTransportStats() {
+        return ResponseEntity.ok(mailTransport.stats());
+    }
+
+    @GetMapping("/uploads/stats")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<UploadServingStats> getUploadServingStats() {
+        return ResponseEntity.ok(uploadServingService.stats());
+    }
+
     @DeleteMapping("/users/{id}")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     public ResponseEntity<?> deleteUser(
@@ -6,12 +6,15 @@ import com.shophub.model.Product;
 import com.shophub.repository.CategoryRepository;
 import com.shophub.repository.ProductRepository;
 import com.shophub.service.CategoryIconStorageService;
+import com.shophub.service.ProductService;
+import com.shophub.service.ProductSuggestService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import java.util.List;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/categories")
@@ -26,6 +29,12 @@ public class CategoryController {
     @Autowired
     private CategoryIconStorageService categoryIconStorageService;
 
+    @Autowired
+    private ProductSuggestService productSuggestService;
+
+    @Autowired
+    private ProductService productService;
+
     @GetMapping
     public List<Category> getAllCategories() {
         return categoryRepository.findAll();
@@ -74,6 +83,8 @@ public class CategoryController {
         }
 
         Category savedCategory = categoryRepository.save(category);
+        categoryIconStorageService.attachIcon(savedCategory);
+        productSuggestService.upsertCategory(savedCategory);
         return ResponseEntity.ok(savedCategory);
     }
 
@@ -91,6 +102,8 @@ public class CategoryController {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found"));
 
+        String previousIcon = category.getIcon();
+        boolean renamed = !Objects.equals(category.getName(), name);
         category.setName(name);
         category.setDescription(description);
         category.setColor(color);
@@ -105,6 +118,14 @@ public class CategoryController {
         }
 
         Category updated = categoryRepository.save(category);
+        categoryIconStorageService.attachIcon(updated);
+        if (!Objects.equals(previousIcon, updated.getIcon())) {
+            categoryIconStorageService.releaseIcon(updated, previousIcon);
+        }
+        productSuggestService.upsertCategory(updated);
+        if (renamed) {
+            productService.reindexProducts(productIdsIn(id));
+        }
         return ResponseEntity.ok(updated);
     }
 
@@ -113,10 +134,18 @@ public class CategoryController {
     public ResponseEntity<?> deleteCategory(@PathVariable Long id) {
         return categoryRepository.findById(id)
                 .map(category -> {
+                    List<Long> productIds = productIdsIn(id);
                     categoryRepository.delete(category);
+                    categoryIconStorageService.releaseIcon(category, category.getIcon());
+                    productSuggestService.removeCategory(id);
+                    productService.reindexProducts(productIds);
                     return ResponseEntity.ok().build();
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    private List<Long> productIdsIn(Long categoryId) {
+        return productRepository.findByCategoryId(categoryId).stream().map(Product::getId).toList();
+    }
+
 }
@@ -1,6 +1,8 @@
 package com.shophub.controller;
 
 import com.shophub.dto.GuestCheckoutRequest;
+import com.shophub.model.Order;
+import com.shophub.service.IdempotencyService;
 import com.shophub.service.OrderService;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
@@ -12,17 +14,27 @@ import org.springframework.web.bind.annotation.*;
 public class CheckoutController {
 
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
 
-    public CheckoutController(OrderService orderService) {
+    public CheckoutController(OrderService orderService, IdempotencyService idempotencyService) {
         this.orderService = orderService;
+        this.idempotencyService = idempotencyService;
     }
 
     @PostMapping("/checkout/guest")
     public ResponseEntity<?> guestCheckout(
-            @Valid @RequestBody GuestCheckoutRequest request
+            @Valid @RequestBody GuestCheckoutRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
     ) {
         return ResponseEntity.ok(
-                orderService.createGuestOrder(request)
+                idempotencyService.execute(
+                        IdempotencyService.guestScope("guest-checkout", request.getEmail()),
+                        idempotencyKey,
+                        request,
+                        () -> orderService.createGuestOrder(request),
+                        Order::getId,
+                        orderService::getOrderWithItems
+                )
         );
     }
 }
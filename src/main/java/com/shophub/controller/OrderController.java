@@ -1,18 +1,26 @@
 package com.shophub.controller;
 
+import com.shophub.dto.CursorPage;
+import com.shophub.dto.OrderFilter;
+import com.shophub.dto.OrderHistoryView;
 import com.shophub.dto.OrderRequest;
+import com.shophub.dto.OrderSummary;
 import com.shophub.exception.ResourceNotFoundException;
 import com.shophub.exception.UnauthorizedException;
 import com.shophub.model.Order;
 import com.shophub.model.User;
+import com.shophub.service.IdempotencyService;
 import com.shophub.service.OrderService;
 import com.shophub.service.UserService;
 import com.shophub.repository.OrderRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -25,13 +33,17 @@ public class OrderController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @Autowired
     private OrderRepository orderRepository;
 
-    // Create order (Guest or Authenticated)
+    // Create order (Guest or Authenticated); retries with the same Idempotency-Key return the original order
     @PostMapping
     public ResponseEntity<?> createOrder(
             @RequestBody OrderRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             Authentication authentication) {
         User user = null;
         if (authentication != null && authentication.isAuthenticated()) {
@@ -44,33 +56,60 @@ public class OrderController {
             }
         }
 
-        Order order = orderService.createOrder(request, user);
+        User customer = user;
+        Order order = idempotencyService.execute(
+                customer != null ? customer.getEmail() : IdempotencyService.guestScope("guest", request.getEmail()),
+                idempotencyKey,
+                request,
+                () -> orderService.createOrder(request, customer),
+                Order::getId,
+                orderService::getOrderWithItems
+        );
         return ResponseEntity.ok(order);
     }
 
     // ✅ FIXED: Get user's own orders WITHOUT @RequestParam String token
     @GetMapping("/my-orders")
     public ResponseEntity<?> getUserOrders(Authentication authentication) {
-        if (authentication == null || !authentication.isAuthenticated()) {
-            throw new UnauthorizedException("Please log in to view orders");
-        }
-
-        String email;
-        Object principal = authentication.getPrincipal();
-        if (principal instanceof User) {
-            email = ((User) principal).getEmail();
-        } else {
-            email = authentication.getName();
-        }
-        List<Order> orders = orderRepository.findByEmailOrderByCreatedAtDesc(email);
+        List<Order> orders = orderRepository.findByEmailOrderByCreatedAtDesc(currentEmail(authentication));
         return ResponseEntity.ok(orders);
     }
 
-    // ✅ Get all orders (Admin only)
+    // Cursor-paginated order history from the checkout snapshots; pass nextCursor back for the next page
+    @GetMapping("/my-orders/page")
+    public ResponseEntity<CursorPage<OrderHistoryView>> getUserOrderPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size,
+            Authentication authentication) {
+        return ResponseEntity.ok(orderService.getOrderHistoryPage(currentEmail(authentication), cursor, size));
+    }
+
+    // ✅ Get all orders (Admin only; newest 500 with items, prefer /admin/search)
     @GetMapping("/admin/all")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     public ResponseEntity<?> getAllOrders() {
-        List<Order> orders = orderRepository.findAllByOrderByCreatedAtDesc();
-        return ResponseEntity.ok(orders);
+        return ResponseEntity.ok(orderService.getAllOrders());
+    }
+
+    // Cursor-paginated admin order search over lean rows; pass nextCursor back for the next page
+    @GetMapping("/admin/search")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<CursorPage<OrderSummary>> searchOrders(
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "email", required = false) String email,
+            @RequestParam(value = "district", required = false) String district,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size
+    ) {
+        OrderFilter filter = new OrderFilter();
+        filter.setStatus(status);
+        filter.setFrom(from);
+        filter.setTo(to);
+        filter.setEmail(email);
+        filter.setDistrict(district);
+        return ResponseEntity.ok(orderService.searchOrders(filter, cursor, size));
     }
 
     // Get order by ID
@@ -81,15 +120,24 @@ public class OrderController {
         return ResponseEntity.ok(order);
     }
 
-    // Update order status (Admin only)
+    // Update order status (Admin only); transitions, restocking and side effects live in OrderService
     @PutMapping("/{id}/status")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     public ResponseEntity<?> updateOrderStatus(
             @PathVariable Long id,
             @RequestParam String status) {
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
-        order.setStatus(status);
-        orderRepository.save(order);
-        return ResponseEntity.ok(order);
+        return ResponseEntity.ok(orderService.updateOrderStatus(id, status));
+    }
+
+    private String currentEmail(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new UnauthorizedException("Please log in to view orders");
+        }
+
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof User) {
+            return ((User) principal).getEmail();
+        }
+        return authentication.getName();
     }
 }
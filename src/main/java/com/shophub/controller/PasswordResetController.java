@@ -4,9 +4,11 @@ import com.shophub.model.PasswordResetToken;
 import com.shophub.model.User;
 import com.shophub.repository.PasswordResetTokenRepository;
 import com.shophub.repository.UserRepository;
+import com.shophub.security.AuthenticatedPrincipalCache;
 import com.shophub.service.EmailService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
@@ -20,20 +22,24 @@ public class PasswordResetController {
     private final PasswordResetTokenRepository tokenRepo;
     private final EmailService emailService;
     private final PasswordEncoder passwordEncoder;
+    private final AuthenticatedPrincipalCache principalCache;
 
     public PasswordResetController(
             UserRepository userRepository,
             PasswordResetTokenRepository tokenRepo,
             EmailService emailService,
-            PasswordEncoder passwordEncoder
+            PasswordEncoder passwordEncoder,
+            AuthenticatedPrincipalCache principalCache
     ) {
         this.userRepository = userRepository;
         this.tokenRepo = tokenRepo;
         this.emailService = emailService;
         this.passwordEncoder = passwordEncoder;
+        this.principalCache = principalCache;
     }
 
     @PostMapping("/forgot-password")
+    @Transactional
     public ResponseEntity<?> forgotPassword(@RequestParam String email) {
 
         User user = userRepository.findByEmail(email)
@@ -59,6 +65,7 @@ public class PasswordResetController {
                 "https://kiaralifestyle.com/reset-password?token=" + token;
 
         emailService.sendEmail(
+                EmailService.TEMPLATE_PASSWORD_RESET,
                 user.getEmail(),
                 "Reset your Kiara Lifestyle password",
                 """
@@ -87,6 +94,7 @@ public class PasswordResetController {
         User user = resetToken.getUser();
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        principalCache.invalidate(user.getEmail());
 
         tokenRepo.delete(resetToken);
 
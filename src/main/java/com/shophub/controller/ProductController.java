@@ -1,5 +1,10 @@
 package com.shophub.controller;
 
+import com.shophub.dto.CursorPage;
+import com.shophub.dto.ProductFilter;
+import com.shophub.dto.ProductSort;
+import com.shophub.dto.SearchPage;
+import com.shophub.dto.Suggestion;
 import com.shophub.exception.BadRequestException;
 import com.shophub.model.Product;
 import com.shophub.service.ProductService;
@@ -25,6 +30,47 @@ public class ProductController {
         return productService.getAllProducts();
     }
 
+    // Keyset-paginated listing; pass nextCursor back to fetch the following page
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Product>> getProductPage(
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "categoryId", required = false) Long categoryId,
+            @RequestParam(value = "minPrice", required = false) Double minPrice,
+            @RequestParam(value = "maxPrice", required = false) Double maxPrice,
+            @RequestParam(value = "inStock", required = false) Boolean inStock,
+            @RequestParam(value = "badge", required = false) String badge,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size
+    ) {
+        ProductFilter filter = new ProductFilter();
+        filter.setCategory(category);
+        filter.setCategoryId(categoryId);
+        filter.setMinPrice(minPrice);
+        filter.setMaxPrice(maxPrice);
+        filter.setInStock(inStock);
+        filter.setBadge(badge);
+
+        return ResponseEntity.ok(productService.getProductPage(filter, ProductSort.fromParam(sort), cursor, size));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<SearchPage<Product>> searchProducts(
+            @RequestParam("q") String query,
+            @RequestParam(value = "page", required = false) Integer page,
+            @RequestParam(value = "size", required = false) Integer size
+    ) {
+        return ResponseEntity.ok(productService.searchProducts(query, page, size));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<Suggestion>> suggest(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(productService.suggest(query, limit));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Product> getProductById(@PathVariable Long id) {
         return ResponseEntity.ok(productService.getProductById(id));
@@ -86,21 +132,21 @@ public class ProductController {
             @RequestParam(value = "additionalImageUrls", required = false) List<String> additionalImageUrls,
             @RequestParam(value = "existingAdditionalImages", required = false) List<String> existingAdditionalImages
     ) {
-        Product existingProduct = productService.getProductById(id);
-
-        existingProduct.setName(name);
-        existingProduct.setDescription(description);
-        existingProduct.setPrice(price);
-        existingProduct.setOriginalPrice(originalPrice);
-        existingProduct.setCategory(category);
-        existingProduct.setStock(stock);
-        existingProduct.setBadge(badge);
-        existingProduct.setRating(rating);
-        existingProduct.setInStock(stock > 0);
+        // Field values only; the service loads and updates the managed entity
+        Product productDetails = new Product();
+        productDetails.setName(name);
+        productDetails.setDescription(description);
+        productDetails.setPrice(price);
+        productDetails.setOriginalPrice(originalPrice);
+        productDetails.setCategory(category);
+        productDetails.setStock(stock);
+        productDetails.setBadge(badge);
+        productDetails.setRating(rating);
+        productDetails.setInStock(stock > 0);
 
         Product updatedProduct = productService.updateProductWithImages(
                 id,
-                existingProduct,
+                productDetails,
                 imageFile,
                 imageUrl,
                 keepExistingImage,
@@ -1,19 +1,25 @@
 package com.shophub.controller;
 
+import com.shophub.dto.CursorPage;
 import com.shophub.dto.ReviewRequest;
+import com.shophub.dto.ReviewView;
+import com.shophub.exception.BadRequestException;
 import com.shophub.exception.ResourceNotFoundException;
 import com.shophub.exception.UnauthorizedException;
-import com.shophub.model.Order;
 import com.shophub.model.Product;
+import com.shophub.model.ProductRatingStats;
 import com.shophub.model.Review;
 import com.shophub.model.User;
 import com.shophub.repository.OrderRepository;
 import com.shophub.repository.ProductRepository;
 import com.shophub.repository.ReviewRepository;
 import com.shophub.repository.UserRepository;
+import com.shophub.service.ProductRatingService;
+import com.shophub.service.ReviewService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
@@ -37,52 +43,62 @@ public class ReviewController {
     @Autowired
     private OrderRepository orderRepository;
 
-    // ✅ Get all reviews for a product
+    @Autowired
+    private ProductRatingService productRatingService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    // ✅ Get reviews for a product (newest first, capped; prefer /page)
     @GetMapping("/product/{productId}")
-    public ResponseEntity<List<Review>> getProductReviews(@PathVariable Long productId) {
-        List<Review> reviews = reviewRepository.findByProductIdOrderByCreatedAtDesc(productId);
-        return ResponseEntity.ok(reviews);
+    public ResponseEntity<List<ReviewView>> getProductReviews(@PathVariable Long productId) {
+        return ResponseEntity.ok(reviewService.getProductReviews(productId));
     }
 
-    // ✅ Get product rating stats
+    // Cursor-paginated review feed for a product
+    @GetMapping("/product/{productId}/page")
+    public ResponseEntity<CursorPage<ReviewView>> getProductReviewPage(
+            @PathVariable Long productId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(reviewService.getProductReviewPage(productId, cursor, size));
+    }
+
+    // ✅ Get product rating stats (served from the maintained aggregate)
     @GetMapping("/product/{productId}/stats")
     public ResponseEntity<Map<String, Object>> getProductRatingStats(@PathVariable Long productId) {
-        List<Review> reviews = reviewRepository.findByProductId(productId);
+        ProductRatingStats ratingStats = productRatingService.getStats(productId)
+                .orElseGet(ProductRatingStats::new);
 
         Map<String, Object> stats = new HashMap<>();
-        if (reviews.isEmpty()) {
-            stats.put("averageRating", 0.0);
-            stats.put("reviewCount", 0);
-            stats.put("purchaseCount", 0);
-            return ResponseEntity.ok(stats);
-        }
-
-        double averageRating = reviews.stream()
-                .mapToInt(Review::getRating)
-                .average()
-                .orElse(0.0);
-
-        // Count unique purchases for this product (Delivered orders only)
-        long purchaseCount = orderRepository.findAll().stream()
-                .filter(order -> "delivered".equalsIgnoreCase(order.getStatus()))
-                .flatMap(order -> order.getItems().stream())
-                .filter(item -> item.getProduct() != null && item.getProduct().getId().equals(productId))
-                .count();
-
-        stats.put("averageRating", Math.round(averageRating * 10.0) / 10.0);
-        stats.put("reviewCount", reviews.size());
-        stats.put("purchaseCount", purchaseCount);
+        stats.put("averageRating", Math.round(ratingStats.getAverageRating() * 10.0) / 10.0);
+        stats.put("reviewCount", ratingStats.getReviewCount());
+        stats.put("purchaseCount", ratingStats.getPurchaseCount());
+        stats.put("ratingDistribution", Map.of(
+                1, ratingStats.getStar1(),
+                2, ratingStats.getStar2(),
+                3, ratingStats.getStar3(),
+                4, ratingStats.getStar4(),
+                5, ratingStats.getStar5()
+        ));
 
         return ResponseEntity.ok(stats);
     }
 
     // ✅ Submit a review (with verified purchase check)
     @PostMapping("/product/{productId}")
+    @Transactional
     public ResponseEntity<?> submitReview(
             @PathVariable Long productId,
             @RequestBody ReviewRequest request,
             Authentication authentication) {
 
+        // Rating aggregates and the star histogram only hold 1-5
+        Integer rating = request.getRating();
+        if (rating == null || rating < 1 || rating > 5) {
+            throw new BadRequestException("Rating must be between 1 and 5");
+        }
+
                 String email;
                 Object principal = authentication.getPrincipal();
                 if (principal instanceof User) {
@@ -94,11 +110,7 @@ public class ReviewController {
                 .orElseThrow(() -> new UnauthorizedException("Invalid user"));
 
         // Check if user purchased this product
-        boolean hasPurchased = orderRepository.findAll().stream()
-                .filter(order -> order.getUser() != null && order.getUser().getId().equals(user.getId()))
-                .filter(order -> "delivered".equalsIgnoreCase(order.getStatus()))
-                .flatMap(order -> order.getItems().stream())
-                .anyMatch(item -> item.getProduct() != null && item.getProduct().getId().equals(productId));
+        boolean hasPurchased = orderRepository.hasUserPurchasedProduct(user.getId(), productId);
 
         if (!hasPurchased) {
             return ResponseEntity.badRequest()
@@ -120,19 +132,20 @@ public class ReviewController {
         review.setUser(user);
         // ✅ FIXED: Use name field instead of username
         review.setUsername(user.getName());
-        review.setRating(request.getRating());
+        review.setRating(rating);
         review.setComment(request.getComment());
         review.setVerified(true);
         review.setCreatedAt(LocalDateTime.now());
 
         reviewRepository.save(review);
+        productRatingService.reviewAdded(productId, review.getRating());
 
         return ResponseEntity.ok(Map.of("message", "Review submitted successfully"));
     }
 
     // ✅ Get user's reviews
     @GetMapping("/my-reviews")
-    public ResponseEntity<List<Review>> getMyReviews(Authentication authentication) {
+    public ResponseEntity<List<ReviewView>> getMyReviews(Authentication authentication) {
                 String email;
                 Object principal = authentication.getPrincipal();
                 if (principal instanceof User) {
@@ -143,12 +156,21 @@ public class ReviewController {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UnauthorizedException("Invalid user"));
 
-        List<Review> reviews = reviewRepository.findByUserIdOrderByCreatedAtDesc(user.getId());
-        return ResponseEntity.ok(reviews);
+        return ResponseEntity.ok(reviewService.getUserReviews(user.getId()));
+    }
+
+    // Cursor-paginated feed of the current user's reviews
+    @GetMapping("/my-reviews/page")
+    public ResponseEntity<CursorPage<ReviewView>> getMyReviewPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            Authentication authentication) {
+        return ResponseEntity.ok(reviewService.getUserReviewPage(currentUserId(authentication), cursor, size));
     }
 
     // ✅ Delete a review (user can only delete their own)
     @DeleteMapping("/{reviewId}")
+    @Transactional
     public ResponseEntity<?> deleteReview(
             @PathVariable Long reviewId,
             Authentication authentication) {
@@ -172,6 +194,17 @@ public class ReviewController {
         }
 
         reviewRepository.delete(review);
+        productRatingService.reviewRemoved(review.getProduct().getId(), review.getRating());
         return ResponseEntity.ok(Map.of("message", "Review deleted successfully"));
     }
+
+    private Long currentUserId(Authentication authentication) {
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof User) {
+            return ((User) principal).getId();
+        }
+        return userRepository.findByEmail(authentication.getName())
+                .map(User::getId)
+                .orElseThrow(() -> new UnauthorizedException("Invalid user"));
+    }
 }
@@ -0,0 +1,38 @@
+package com.shophub.controller;
+
+import com.shophub.service.UploadServingService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Uploaded images, e.g. {@code /uploads/products/<uuid>.jpg?w=480}. Also answers HEAD.
+ */
+@RestController
+public class UploadController {
+
+    private static final String PREFIX = "/uploads/";
+
+    private final UploadServingService uploadServingService;
+
+    public UploadController(UploadServingService uploadServingService) {
+        this.uploadServingService = uploadServingService;
+    }
+
+    @GetMapping("/uploads/**")
+    public void serve(
+            @RequestParam(value = "w", required = false) String width,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String relative = UriUtils.decode(path.substring(PREFIX.length()), StandardCharsets.UTF_8);
+        uploadServingService.serve(relative, width, request, response);
+    }
+}
@@ -6,6 +6,7 @@ import com.shophub.exception.ResourceNotFoundException;
 import com.shophub.model.Role;
 import com.shophub.model.User;
 import com.shophub.repository.UserRepository;
+import com.shophub.security.AuthenticatedPrincipalCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -27,6 +28,9 @@ public class UserController {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private AuthenticatedPrincipalCache principalCache;
+
     @GetMapping("/profile")
     public ResponseEntity<UserProfile> getProfile(Authentication authentication) {
         String email;
@@ -102,6 +106,11 @@ public class UserController {
         }
 
         User updatedUser = userRepository.save(user);
+
+        // Evict under both the old and the new email so the next request re-reads the row
+        principalCache.invalidate(email);
+        principalCache.invalidate(updatedUser.getEmail());
+
         return ResponseEntity.ok(updatedUser);
     }
 }
@@ -0,0 +1,53 @@
+package com.shophub.dto;
+
+import com.shophub.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursor for keyset pagination: the sort key of the last row returned,
+ * its id as a tie-breaker, and the sort it was issued for.
+ */
+@Data
+@AllArgsConstructor
+public class KeysetCursor {
+
+    private String sort;
+    private String value;
+    private Long id;
+
+    public String encode() {
+        String raw = sort + "|" + (value == null ? "" : value) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor, String expectedSort) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int first = raw.indexOf('|');
+            int last = raw.lastIndexOf('|');
+            if (first < 0 || last <= first) {
+                throw new BadRequestException("Invalid cursor");
+            }
+
+            String sort = raw.substring(0, first);
+            if (!sort.equals(expectedSort)) {
+                throw new BadRequestException("Cursor does not match the requested sort");
+            }
+
+            String value = raw.substring(first + 1, last);
+            Long id = Long.parseLong(raw.substring(last + 1));
+            return new KeysetCursor(sort, value.isEmpty() ? null : value, id);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.shophub.dto;
+
+import com.shophub.metrics.LatencySnapshot;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class MailTransportStats {
+    // HTTP calls made; lower than sent when messages are batched
+    private long requests;
+    private long sent;
+    private long failed;
+    // HTTP status -> count; "io" for timeouts and connection failures
+    private Map<String, Long> failuresByStatus;
+    private LatencySnapshot latency;
+}
@@ -0,0 +1,15 @@
+package com.shophub.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+// Admin order search; dates are inclusive calendar days, email and district match exactly
+@Data
+public class OrderFilter {
+    private String status;
+    private LocalDate from;
+    private LocalDate to;
+    private String email;
+    private String district;
+}
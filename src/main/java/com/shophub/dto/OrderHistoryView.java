@@ -0,0 +1,23 @@
+package com.shophub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Customer order history row: the order's own columns plus its snapshotted lines
+@Data
+@AllArgsConstructor
+public class OrderHistoryView {
+    private Long id;
+    private LocalDateTime createdAt;
+    private String status;
+    private Double total;
+    private Double deliveryCharge;
+    private String paymentMethod;
+    private String deliveryMethod;
+    private String address;
+    private String district;
+    private List<OrderLineView> items;
+}
@@ -0,0 +1,16 @@
+package com.shophub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Order line as snapshotted at checkout; never touches the live Product
+@Data
+@AllArgsConstructor
+public class OrderLineView {
+    private Long productId;
+    private String productName;
+    private String productImage;
+    private String productDescription;
+    private Integer quantity;
+    private Double price;
+}
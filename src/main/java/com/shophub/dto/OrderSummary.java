@@ -0,0 +1,24 @@
+package com.shophub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// One admin listing row selected straight from the orders table; items stay behind GET /api/orders/{id}
+@Data
+@AllArgsConstructor
+public class OrderSummary {
+    private Long id;
+    private LocalDateTime createdAt;
+    private String status;
+    private String userName;
+    private String email;
+    private String phone;
+    private String district;
+    private Double total;
+    private String paymentMethod;
+    private String deliveryMethod;
+    private Boolean guestOrder;
+    private Long itemCount;
+}
@@ -0,0 +1,12 @@
+package com.shophub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class OutgoingEmail {
+    private String to;
+    private String subject;
+    private String htmlContent;
+}
@@ -0,0 +1,13 @@
+package com.shophub.dto;
+
+import lombok.Data;
+
+@Data
+public class ProductFilter {
+    private String category;
+    private Long categoryId;
+    private Double minPrice;
+    private Double maxPrice;
+    private Boolean inStock;
+    private String badge;
+}
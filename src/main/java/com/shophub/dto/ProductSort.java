@@ -0,0 +1,22 @@
+package com.shophub.dto;
+
+import com.shophub.exception.BadRequestException;
+
+public enum ProductSort {
+    NEWEST,
+    PRICE_ASC,
+    PRICE_DESC,
+    NAME_ASC;
+
+    public static ProductSort fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return NEWEST;
+        }
+
+        try {
+            return ProductSort.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unsupported sort: " + value);
+        }
+    }
+}
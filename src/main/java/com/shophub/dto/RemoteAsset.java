@@ -0,0 +1,15 @@
+package com.shophub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+// An asset as listed by the storage provider, for orphan reconciliation
+@Data
+@AllArgsConstructor
+public class RemoteAsset {
+    private String publicId;
+    private String url;
+    private Instant createdAt;
+}
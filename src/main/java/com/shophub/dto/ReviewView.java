@@ -0,0 +1,20 @@
+package com.shophub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Lean review row selected straight from JPQL; never carries the reviewer's User entity
+@Data
+@AllArgsConstructor
+public class ReviewView {
+    private Long id;
+    private Long productId;
+    private String productName;
+    private Integer rating;
+    private String comment;
+    private String username;
+    private Boolean verified;
+    private LocalDateTime createdAt;
+}
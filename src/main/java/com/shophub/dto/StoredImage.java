@@ -0,0 +1,12 @@
+package com.shophub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Where an uploaded image ended up: the URL to render and the provider id to delete it by
+@Data
+@AllArgsConstructor
+public class StoredImage {
+    private String url;
+    private String publicId;
+}
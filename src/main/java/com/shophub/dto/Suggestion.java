@@ -0,0 +1,12 @@
+package com.shophub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class Suggestion {
+    private String type;
+    private Long id;
+    private String text;
+}
@@ -0,0 +1,20 @@
+package com.shophub.dto;
+
+import com.shophub.cache.CacheStats;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class UploadServingStats {
+    private long requests;
+    private long ok;
+    private long partial;
+    private long notModified;
+    private long notFound;
+    private long rangeNotSatisfiable;
+    // Bodies handed to the connector's sendfile instead of written by the application
+    private long sendfile;
+    private long bytesServed;
+    private CacheStats etagCache;
+}
@@ -0,0 +1,21 @@
+package com.shophub.exception;
+
+// Mail provider rejected or could not be reached; status is 0 when no HTTP response was received
+public class MailDeliveryException extends RuntimeException {
+
+    private final int status;
+
+    public MailDeliveryException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public MailDeliveryException(String message, Throwable cause) {
+        super(message, cause);
+        this.status = 0;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
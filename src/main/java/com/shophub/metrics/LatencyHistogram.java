@@ -0,0 +1,81 @@
+package com.shophub.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram. Recording is lock-free (one LongAdder per bucket);
+ * percentiles in a snapshot are reported as the upper bound of the bucket they fall in.
+ */
+public class LatencyHistogram {
+
+    private static final long[] BOUNDS_MILLIS = {5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private final String name;
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_MILLIS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMillis = new LongAdder();
+    private final AtomicLong maxMillis = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void recordNanos(long nanos) {
+        long millis = Math.max(0L, nanos / 1_000_000L);
+        int i = 0;
+        while (i < BOUNDS_MILLIS.length && millis > BOUNDS_MILLIS[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        count.increment();
+        totalMillis.add(millis);
+        maxMillis.accumulateAndGet(millis, Math::max);
+    }
+
+    public LatencySnapshot snapshot() {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+
+        Map<String, Long> byBucket = new LinkedHashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            byBucket.put(i < BOUNDS_MILLIS.length ? "le_" + BOUNDS_MILLIS[i] + "ms" : "gt_" + BOUNDS_MILLIS[i - 1] + "ms", counts[i]);
+        }
+
+        long max = maxMillis.get();
+        return new LatencySnapshot(
+                name,
+                total,
+                total == 0 ? 0.0 : (double) totalMillis.sum() / total,
+                max,
+                percentile(counts, total, 0.50, max),
+                percentile(counts, total, 0.95, max),
+                percentile(counts, total, 0.99, max),
+                byBucket
+        );
+    }
+
+    private static long percentile(long[] counts, long total, double quantile, long max) {
+        if (total == 0) {
+            return 0L;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i < BOUNDS_MILLIS.length ? Math.min(BOUNDS_MILLIS[i], max) : max;
+            }
+        }
+        return max;
+    }
+}
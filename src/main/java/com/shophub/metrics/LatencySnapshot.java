@@ -0,0 +1,19 @@
+package com.shophub.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class LatencySnapshot {
+    private String name;
+    private long count;
+    private double meanMillis;
+    private long maxMillis;
+    private long p50Millis;
+    private long p95Millis;
+    private long p99Millis;
+    private Map<String, Long> buckets;
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.Data;
 
@@ -15,7 +16,8 @@ import java.time.LocalDateTime;
 public class AdminActionToken {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "admin_action_tokens_seq")
+    @SequenceGenerator(name = "admin_action_tokens_seq", sequenceName = "admin_action_tokens_seq", allocationSize = 50)
     private Long id;
 
     private String adminEmail;
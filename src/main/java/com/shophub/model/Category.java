@@ -1,9 +1,12 @@
 package com.shophub.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+
 import java.time.LocalDateTime;
 
 @Entity
+@BatchSize(size = 100)
 @Table(name = "categories")
 public class Category {
 
@@ -0,0 +1,54 @@
+package com.shophub.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// An email queued in the sender's transaction and delivered later by EmailOutboxWorker
+@Entity
+@Table(
+        name = "email_outbox",
+        indexes = @Index(name = "idx_email_outbox_status_next", columnList = "status, next_attempt_at")
+)
+@Data
+public class EmailOutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "email_outbox_seq")
+    @SequenceGenerator(name = "email_outbox_seq", sequenceName = "email_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    // Logical email kind (see EmailService.TEMPLATE_*); the worker batches messages of the same template
+    @Column(nullable = false, length = 64)
+    private String template;
+
+    @Column(nullable = false, length = 320)
+    private String recipient;
+
+    @Column(nullable = false, length = 500)
+    private String subject;
+
+    @Column(name = "html_content", nullable = false, columnDefinition = "TEXT")
+    private String htmlContent;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private EmailOutboxStatus status = EmailOutboxStatus.PENDING;
+
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    // When PENDING: earliest next try. When SENDING: lease expiry, after which the claim is considered lost.
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
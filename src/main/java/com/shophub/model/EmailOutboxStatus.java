@@ -0,0 +1,8 @@
+package com.shophub.model;
+
+public enum EmailOutboxStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    DEAD
+}
@@ -7,11 +7,22 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(
+        name = "orders",
+        indexes = {
+                @Index(name = "idx_orders_user_status", columnList = "user_id, status"),
+                // Admin search: keyset on (created_at, id), optionally narrowed by one equality filter
+                @Index(name = "idx_orders_created_id", columnList = "created_at, id"),
+                @Index(name = "idx_orders_status_created_id", columnList = "status, created_at, id"),
+                @Index(name = "idx_orders_email_created_id", columnList = "user_email, created_at, id"),
+                @Index(name = "idx_orders_district_created_id", columnList = "district, created_at, id")
+        }
+)
 @Data
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = true)
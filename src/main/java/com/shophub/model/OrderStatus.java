@@ -0,0 +1,46 @@
+package com.shophub.model;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Order lifecycle, stored lowercase in orders.status.
+ * Delivered and cancelled are final: a cancelled order has already given its stock back.
+ */
+public enum OrderStatus {
+    PENDING,
+    PROCESSING,
+    SHIPPED,
+    DELIVERED,
+    CANCELLED;
+
+    public String value() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public boolean canTransitionTo(OrderStatus target) {
+        return allowedTargets().contains(target);
+    }
+
+    private Set<OrderStatus> allowedTargets() {
+        return switch (this) {
+            case PENDING -> EnumSet.of(PROCESSING, SHIPPED, DELIVERED, CANCELLED);
+            case PROCESSING -> EnumSet.of(SHIPPED, DELIVERED, CANCELLED);
+            case SHIPPED -> EnumSet.of(DELIVERED, CANCELLED);
+            case DELIVERED, CANCELLED -> EnumSet.noneOf(OrderStatus.class);
+        };
+    }
+
+    public static Optional<OrderStatus> fromValue(String value) {
+        if (value == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(valueOf(value.trim().toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
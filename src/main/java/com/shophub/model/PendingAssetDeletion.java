@@ -0,0 +1,33 @@
+package com.shophub.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// A stored image no product references any more, deleted from the provider by AssetGarbageCollector
+@Entity
+@Table(
+        name = "pending_asset_deletions",
+        indexes = @Index(name = "idx_pending_asset_deletions_next", columnList = "next_attempt_at")
+)
+@Data
+public class PendingAssetDeletion {
+
+    // The provider's public id; queuing the same asset twice is a no-op
+    @Id
+    @Column(name = "public_id", length = 255)
+    private String publicId;
+
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
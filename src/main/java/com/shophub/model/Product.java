@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.BatchSize;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -12,11 +13,21 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "products")
+@Table(
+        name = "products",
+        indexes = {
+                @Index(name = "idx_products_active_id", columnList = "active, id"),
+                @Index(name = "idx_products_active_price", columnList = "active, price, id"),
+                @Index(name = "idx_products_active_name", columnList = "active, name, id"),
+                @Index(name = "idx_products_category", columnList = "category"),
+                @Index(name = "idx_products_badge", columnList = "badge")
+        }
+)
 public class Product {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
 
     private String name;
@@ -38,6 +49,16 @@ public class Product {
     private Integer stock;
     private String badge;
     private Double rating = 4.5;
+
+    // Denormalized from product_rating_stats by ProductRatingService. Not updatable through
+    // entity saves, so a product edit can never overwrite a concurrent review update.
+    @Column(name = "review_count", updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer reviewCount = 0;
+
+    @Column(name = "average_rating", updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Double averageRating = 0.0;
     private Boolean inStock = true;
 
     @Column(nullable = false)
@@ -49,7 +70,9 @@ public class Product {
     private String imagePublicId;
 
     // Additional Images
+    // Batch-loaded for up to a full catalog page of products per select (no per-product N+1)
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = 100)
     @CollectionTable(
             name = "product_images",
             joinColumns = @JoinColumn(name = "product_id")
@@ -59,6 +82,7 @@ public class Product {
     private List<String> additionalImages = new ArrayList<>();
 
         @ElementCollection(fetch = FetchType.EAGER)
+        @BatchSize(size = 100)
         @CollectionTable(
             name = "product_image_public_ids",
             joinColumns = @JoinColumn(name = "product_id")
@@ -0,0 +1,71 @@
+package com.shophub.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+// Per-product review aggregate, maintained incrementally by ProductRatingService
+@Entity
+@Table(name = "product_rating_stats")
+@Data
+public class ProductRatingStats {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(nullable = false)
+    private long reviewCount;
+
+    @Column(nullable = false)
+    private long ratingSum;
+
+    @Column(name = "star_1", nullable = false)
+    private long star1;
+
+    @Column(name = "star_2", nullable = false)
+    private long star2;
+
+    @Column(name = "star_3", nullable = false)
+    private long star3;
+
+    @Column(name = "star_4", nullable = false)
+    private long star4;
+
+    @Column(name = "star_5", nullable = false)
+    private long star5;
+
+    // Delivered order lines for this product
+    @Column(nullable = false)
+    private long purchaseCount;
+
+    public double getAverageRating() {
+        return reviewCount == 0 ? 0.0 : (double) ratingSum / reviewCount;
+    }
+
+    public void reset() {
+        reviewCount = 0;
+        ratingSum = 0;
+        star1 = 0;
+        star2 = 0;
+        star3 = 0;
+        star4 = 0;
+        star5 = 0;
+        purchaseCount = 0;
+    }
+
+    public void addRating(int rating, long count) {
+        reviewCount += count;
+        ratingSum += rating * count;
+        switch (rating) {
+            case 1 -> star1 += count;
+            case 2 -> star2 += count;
+            case 3 -> star3 += count;
+            case 4 -> star4 += count;
+            case 5 -> star5 += count;
+            default -> { }
+        }
+    }
+}
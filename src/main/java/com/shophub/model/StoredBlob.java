@@ -0,0 +1,40 @@
+package com.shophub.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// One uploaded file stored once under its content hash, shared by every product/category that uses it
+@Entity
+@Table(
+        name = "stored_blobs",
+        indexes = @Index(name = "idx_stored_blobs_released", columnList = "ref_count, released_at")
+)
+@Data
+public class StoredBlob {
+
+    // Hex SHA-256 of the content
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    // Including the dot, e.g. ".jpg"; empty when the upload had none
+    @Column(nullable = false, length = 10)
+    private String extension;
+
+    @Column(nullable = false)
+    private long size;
+
+    // Number of StoredBlobRef rows, kept in step with them under this row's lock
+    @Column(name = "ref_count", nullable = false)
+    private int refCount = 0;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    // When refCount last dropped to zero (or the blob was stored without an owner yet);
+    // the file is deleted by BlobStore's sweep after a grace period
+    @Column(name = "released_at")
+    private LocalDateTime releasedAt;
+}
@@ -0,0 +1,43 @@
+package com.shophub.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// One owner's reference to a StoredBlob; at most one per (owner, blob), so a repeated release is a no-op
+@Entity
+@Table(name = "stored_blob_refs")
+@IdClass(StoredBlobRef.Key.class)
+@Data
+@NoArgsConstructor
+public class StoredBlobRef {
+
+    // e.g. "category:12", or a product image's public id
+    @Id
+    @Column(length = 255)
+    private String owner;
+
+    @Id
+    @Column(name = "blob_hash", length = 64)
+    private String blobHash;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public StoredBlobRef(String owner, String blobHash) {
+        this.owner = owner;
+        this.blobHash = blobHash;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String owner;
+        private String blobHash;
+    }
+}
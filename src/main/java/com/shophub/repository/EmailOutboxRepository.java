@@ -0,0 +1,55 @@
+package com.shophub.repository;
+
+import com.shophub.model.EmailOutboxMessage;
+import com.shophub.model.EmailOutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    // Due messages: pending ones whose backoff has elapsed, and sending ones whose lease expired
+    // Rows are [id, template, createdAt]
+    @Query("SELECT m.id, m.template, m.createdAt FROM EmailOutboxMessage m " +
+            "WHERE m.status IN (com.shophub.model.EmailOutboxStatus.PENDING, com.shophub.model.EmailOutboxStatus.SENDING) " +
+            "AND m.nextAttemptAt <= :now ORDER BY m.nextAttemptAt, m.id")
+    List<Object[]> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Claims the still-due rows among ids in one statement and returns the ids it got. Rows another
+    // worker has locked are skipped rather than waited for, and a row claimed meanwhile is no longer due.
+    @Transactional
+    @Query(value = "UPDATE email_outbox SET status = 'SENDING', attempts = attempts + 1, next_attempt_at = :leaseUntil " +
+            "WHERE id IN (SELECT id FROM email_outbox WHERE id IN (:ids) AND next_attempt_at <= :now " +
+            "AND status IN ('PENDING', 'SENDING') FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id", nativeQuery = true)
+    List<Long> claim(@Param("ids") Collection<Long> ids,
+                     @Param("now") LocalDateTime now,
+                     @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutboxMessage m SET m.status = com.shophub.model.EmailOutboxStatus.SENT, " +
+            "m.sentAt = :sentAt, m.lastError = NULL WHERE m.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutboxMessage m SET m.status = :status, m.nextAttemptAt = :nextAttemptAt, " +
+            "m.lastError = :lastError WHERE m.id = :id")
+    int markFailed(@Param("id") Long id,
+                   @Param("status") EmailOutboxStatus status,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("lastError") String lastError);
+
+    @Query("SELECT m.status, COUNT(m) FROM EmailOutboxMessage m GROUP BY m.status")
+    List<Object[]> countByStatus();
+}
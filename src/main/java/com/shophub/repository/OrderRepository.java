@@ -1,21 +1,47 @@
 package com.shophub.repository;
 
 import com.shophub.model.Order;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
-
-    // ✅ FIXED: Use o.user.id instead of o.userId
-    @Query("SELECT CASE WHEN COUNT(o) > 0 THEN true ELSE false END " +
-            "FROM Order o JOIN o.items oi " +
-            "WHERE o.user.id = :userId AND oi.product.id = :productId AND o.status = 'delivered'")
-    Boolean hasUserPurchasedProduct(@Param("userId") Long userId, @Param("productId") Long productId);
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderSearchRepository {
+
+    // Verified-purchase check; bounded by the user's own orders via idx_orders_user_status
+    @Query("SELECT CASE WHEN COUNT(oi) > 0 THEN true ELSE false END " +
+            "FROM OrderItem oi JOIN oi.order o " +
+            "WHERE o.user.id = :userId AND oi.product.id = :productId AND LOWER(o.status) = 'delivered'")
+    boolean hasUserPurchasedProduct(@Param("userId") Long userId, @Param("productId") Long productId);
+
+    // Delivered order lines for a product, served by idx_order_items_product_order
+    @Query("SELECT COUNT(oi) FROM OrderItem oi JOIN oi.order o " +
+            "WHERE oi.product.id = :productId AND LOWER(o.status) = 'delivered'")
+    long countDeliveredItemsByProduct(@Param("productId") Long productId);
+
+    // Rows are [productId, deliveredLines]
+    @Query("SELECT oi.product.id, COUNT(oi) FROM OrderItem oi JOIN oi.order o " +
+            "WHERE oi.product.id IN :productIds AND LOWER(o.status) = 'delivered' GROUP BY oi.product.id")
+    List<Object[]> countDeliveredItemsByProducts(@Param("productIds") Collection<Long> productIds);
+
+    // Units ordered per product, excluding cancelled orders (feeds suggestion ranking)
+    @Query("SELECT oi.product.id, SUM(oi.quantity) FROM Order o JOIN o.items oi " +
+            "WHERE LOWER(o.status) <> 'cancelled' AND oi.product IS NOT NULL " +
+            "GROUP BY oi.product.id")
+    List<Object[]> sumOrderedQuantityByProduct();
+
+    // SELECT ... FOR UPDATE: status changes on one order are serialized, so a cancel restocks once
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findByIdForUpdate(@Param("id") Long id);
 
     // Find orders by user ID
     List<Order> findByUserIdOrderByCreatedAtDesc(Long userId);
@@ -26,6 +52,9 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     // Find all orders
     List<Order> findAllByOrderByCreatedAtDesc();
 
+    // Capped variant for the legacy unpaginated admin listing (no count query)
+    List<Order> findAllByOrderByCreatedAtDesc(Pageable pageable);
+
     // Find orders by user email
     List<Order> findByEmailOrderByCreatedAtDesc(String email);
 }
@@ -0,0 +1,24 @@
+package com.shophub.repository;
+
+import com.shophub.dto.OrderFilter;
+import com.shophub.dto.OrderHistoryView;
+import com.shophub.dto.OrderSummary;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Custom fragment of OrderRepository: filters are optional, so the query is built per request
+public interface OrderSearchRepository {
+
+    /**
+     * Newest first by (createdAt, id). Pass the last row's createdAt/id to continue after it,
+     * or nulls for the first page.
+     */
+    List<OrderSummary> searchSummaries(OrderFilter filter, LocalDateTime afterCreatedAt, Long afterId, int limit);
+
+    /**
+     * Up to {@code limit} orders placed with this email, newest first by (createdAt, id),
+     * each with its snapshotted lines. One statement; the live Product rows are never read.
+     */
+    List<OrderHistoryView> findHistory(String email, LocalDateTime afterCreatedAt, Long afterId, int limit);
+}
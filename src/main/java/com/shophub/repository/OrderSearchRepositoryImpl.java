@@ -0,0 +1,168 @@
+package com.shophub.repository;
+
+import com.shophub.dto.OrderFilter;
+import com.shophub.dto.OrderHistoryView;
+import com.shophub.dto.OrderLineView;
+import com.shophub.dto.OrderSummary;
+import com.shophub.model.Order;
+import com.shophub.model.OrderItem;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class OrderSearchRepositoryImpl implements OrderSearchRepository {
+
+    // Page the orders first (idx_orders_email_created_id), then join only that page's lines
+    private static final String HISTORY_SQL =
+            "SELECT o.id, o.created_at, o.status, o.total, o.delivery_charge, o.payment_method, " +
+            "o.delivery_method, o.address, o.district, " +
+            "oi.product_id, oi.product_name, oi.product_image, oi.product_description, oi.quantity, oi.price " +
+            "FROM (SELECT * FROM orders WHERE user_email = :email AND created_at IS NOT NULL%s " +
+            "      ORDER BY created_at DESC, id DESC LIMIT :limit) o " +
+            "LEFT JOIN order_items oi ON oi.order_id = o.id " +
+            "ORDER BY o.created_at DESC, o.id DESC, oi.id";
+
+    private static final String HISTORY_FIRST_PAGE_SQL = HISTORY_SQL.formatted("");
+    private static final String HISTORY_AFTER_SQL =
+            HISTORY_SQL.formatted(" AND (created_at, id) < (:afterCreatedAt, :afterId)");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<OrderSummary> searchSummaries(OrderFilter filter, LocalDateTime afterCreatedAt, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderSummary> query = cb.createQuery(OrderSummary.class);
+        Root<Order> order = query.from(Order.class);
+
+        Path<LocalDateTime> createdAt = order.get("createdAt");
+        Path<Long> id = order.get("id");
+
+        // Item count per row hits idx_order_items_order; the items themselves are never loaded
+        Subquery<Long> itemCount = query.subquery(Long.class);
+        Root<OrderItem> item = itemCount.from(OrderItem.class);
+        itemCount.select(cb.count(item)).where(cb.equal(item.get("order"), order));
+
+        query.select(cb.construct(OrderSummary.class,
+                id,
+                createdAt,
+                order.get("status"),
+                order.get("userName"),
+                order.get("email"),
+                order.get("phone"),
+                order.get("district"),
+                order.get("total"),
+                order.get("paymentMethod"),
+                order.get("deliveryMethod"),
+                order.get("guestOrder"),
+                itemCount
+        ));
+
+        List<Predicate> predicates = new ArrayList<>();
+        // Keyset ordering needs a timestamp on every row
+        predicates.add(cb.isNotNull(createdAt));
+
+        if (filter != null) {
+            // Statuses are stored lowercase (the init script normalizes older rows), so
+            // an exact match can use idx_orders_status_created_id where LOWER() could not
+            if (filter.getStatus() != null) {
+                predicates.add(cb.equal(order.get("status"), filter.getStatus().toLowerCase(Locale.ROOT)));
+            }
+            if (filter.getEmail() != null && !filter.getEmail().isBlank()) {
+                predicates.add(cb.equal(order.get("email"), filter.getEmail().trim()));
+            }
+            if (filter.getDistrict() != null && !filter.getDistrict().isBlank()) {
+                predicates.add(cb.equal(order.get("district"), filter.getDistrict().trim()));
+            }
+            if (filter.getFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(createdAt, filter.getFrom().atStartOfDay()));
+            }
+            if (filter.getTo() != null) {
+                predicates.add(cb.lessThan(createdAt, filter.getTo().plusDays(1).atStartOfDay()));
+            }
+        }
+
+        // Rows strictly after the cursor in (createdAt DESC, id DESC) order: an index range scan per page
+        if (afterCreatedAt != null && afterId != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(createdAt, afterCreatedAt),
+                    cb.and(cb.equal(createdAt, afterCreatedAt), cb.lessThan(id, afterId))
+            ));
+        }
+
+        query.where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(createdAt), cb.desc(id));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<OrderHistoryView> findHistory(String email, LocalDateTime afterCreatedAt, Long afterId, int limit) {
+        boolean firstPage = afterCreatedAt == null || afterId == null;
+        Query query = entityManager.createNativeQuery(firstPage ? HISTORY_FIRST_PAGE_SQL : HISTORY_AFTER_SQL)
+                .setParameter("email", email)
+                .setParameter("limit", limit);
+        if (!firstPage) {
+            query.setParameter("afterCreatedAt", afterCreatedAt).setParameter("afterId", afterId);
+        }
+        List<Object[]> rows = query.getResultList();
+
+        Map<Long, OrderHistoryView> orders = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            Long orderId = ((Number) row[0]).longValue();
+            OrderHistoryView order = orders.computeIfAbsent(orderId, id -> new OrderHistoryView(
+                    id,
+                    toLocalDateTime(row[1]),
+                    (String) row[2],
+                    toDouble(row[3]),
+                    toDouble(row[4]),
+                    (String) row[5],
+                    (String) row[6],
+                    (String) row[7],
+                    (String) row[8],
+                    new ArrayList<>()
+            ));
+
+            // LEFT JOIN: an order without lines comes back once with null line columns
+            if (row[13] != null) {
+                order.getItems().add(new OrderLineView(
+                        row[9] == null ? null : ((Number) row[9]).longValue(),
+                        (String) row[10],
+                        (String) row[11],
+                        (String) row[12],
+                        ((Number) row[13]).intValue(),
+                        toDouble(row[14])
+                ));
+            }
+        }
+        return new ArrayList<>(orders.values());
+    }
+
+    private static Double toDouble(Object value) {
+        return value == null ? null : ((Number) value).doubleValue();
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+}
@@ -0,0 +1,22 @@
+package com.shophub.repository;
+
+import com.shophub.model.PendingAssetDeletion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PendingAssetDeletionRepository extends JpaRepository<PendingAssetDeletion, String> {
+
+    @Query("SELECT d FROM PendingAssetDeletion d WHERE d.nextAttemptAt <= :now ORDER BY d.nextAttemptAt")
+    List<PendingAssetDeletion> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Query("SELECT d.publicId FROM PendingAssetDeletion d WHERE d.publicId IN :publicIds")
+    List<String> findQueued(@Param("publicIds") Collection<String> publicIds);
+}
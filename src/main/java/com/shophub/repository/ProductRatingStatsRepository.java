@@ -0,0 +1,51 @@
+package com.shophub.repository;
+
+import com.shophub.model.ProductRatingStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductRatingStatsRepository extends JpaRepository<ProductRatingStats, Long> {
+
+    // Atomic in-place increment (delta = +1 on create, -1 on delete); returns 0 if the row does not exist yet
+    @Modifying
+    @Query("UPDATE ProductRatingStats s SET " +
+            "s.reviewCount = s.reviewCount + :delta, " +
+            "s.ratingSum = s.ratingSum + :delta * :rating, " +
+            "s.star1 = s.star1 + CASE WHEN :rating = 1 THEN :delta ELSE 0 END, " +
+            "s.star2 = s.star2 + CASE WHEN :rating = 2 THEN :delta ELSE 0 END, " +
+            "s.star3 = s.star3 + CASE WHEN :rating = 3 THEN :delta ELSE 0 END, " +
+            "s.star4 = s.star4 + CASE WHEN :rating = 4 THEN :delta ELSE 0 END, " +
+            "s.star5 = s.star5 + CASE WHEN :rating = 5 THEN :delta ELSE 0 END " +
+            "WHERE s.productId = :productId")
+    int applyReview(@Param("productId") Long productId, @Param("rating") long rating, @Param("delta") long delta);
+
+    @Modifying
+    @Query("UPDATE ProductRatingStats s SET s.purchaseCount = s.purchaseCount + :delta WHERE s.productId = :productId")
+    int applyPurchases(@Param("productId") Long productId, @Param("delta") long delta);
+
+    // All-zero row unless one exists. A concurrent insert for the same product waits for the first to commit,
+    // then does nothing, so racing rebuilds never fail on the primary key.
+    @Modifying
+    @Query(value = "INSERT INTO product_rating_stats (product_id, review_count, rating_sum, " +
+            "star_1, star_2, star_3, star_4, star_5, purchase_count) " +
+            "VALUES (:productId, 0, 0, 0, 0, 0, 0, 0, 0) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertEmptyIfAbsent(@Param("productId") Long productId);
+
+    // Locks the rows until commit, in id order so concurrent rebuilds of overlapping products cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ProductRatingStats s WHERE s.productId IN :productIds ORDER BY s.productId")
+    List<ProductRatingStats> findAllForUpdate(@Param("productIds") Collection<Long> productIds);
+
+    @Query("SELECT p.id FROM Product p WHERE NOT EXISTS " +
+            "(SELECT s.productId FROM ProductRatingStats s WHERE s.productId = p.id)")
+    List<Long> findProductIdsWithoutStats();
+}
@@ -1,18 +1,25 @@
 package com.shophub.repository;
 
 import com.shophub.model.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
 
     List<Product> findByActiveTrue();
 
+    // Capped variant for the legacy unpaginated listing (no count query)
+    List<Product> findByActiveTrue(Pageable pageable);
+
     // Existing methods - keep these
     List<Product> findByCategory(String category);
     List<Product> findByNameContainingIgnoreCase(String name);
@@ -21,4 +28,24 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     // NEW: Custom query for Category entity relationship
     @Query("SELECT p FROM Product p WHERE p.categoryEntity.id = :categoryId")
     List<Product> findByCategoryId(@Param("categoryId") Long categoryId);
+
+    // Which of these asset ids / URLs some product (active or not) still points at
+    @Query("SELECT p.imagePublicId FROM Product p WHERE p.imagePublicId IN :publicIds")
+    List<String> findReferencedMainPublicIds(@Param("publicIds") Collection<String> publicIds);
+
+    @Query("SELECT pid FROM Product p JOIN p.additionalImagePublicIds pid WHERE pid IN :publicIds")
+    List<String> findReferencedAdditionalPublicIds(@Param("publicIds") Collection<String> publicIds);
+
+    @Query("SELECT p.image FROM Product p WHERE p.image IN :urls")
+    List<String> findReferencedMainImageUrls(@Param("urls") Collection<String> urls);
+
+    @Query("SELECT url FROM Product p JOIN p.additionalImages url WHERE url IN :urls")
+    List<String> findReferencedAdditionalImageUrls(@Param("urls") Collection<String> urls);
+
+    // The only write path for the denormalized rating columns (they are not updatable via save)
+    @Modifying
+    @Query("UPDATE Product p SET p.reviewCount = :reviewCount, p.averageRating = :averageRating WHERE p.id = :id")
+    int updateRatingSummary(@Param("id") Long id,
+                            @Param("reviewCount") Integer reviewCount,
+                            @Param("averageRating") Double averageRating);
 }
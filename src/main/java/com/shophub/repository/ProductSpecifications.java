@@ -0,0 +1,179 @@
+package com.shophub.repository;
+
+import com.shophub.dto.KeysetCursor;
+import com.shophub.dto.ProductFilter;
+import com.shophub.dto.ProductSort;
+import com.shophub.model.Product;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> activeMatching(ProductFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.isTrue(root.get("active")));
+
+            if (filter == null) {
+                return cb.and(predicates.toArray(new Predicate[0]));
+            }
+
+            if (filter.getCategory() != null && !filter.getCategory().isBlank()) {
+                predicates.add(cb.equal(root.get("category"), filter.getCategory()));
+            }
+            if (filter.getCategoryId() != null) {
+                predicates.add(cb.equal(root.get("categoryEntity").get("id"), filter.getCategoryId()));
+            }
+            if (filter.getMinPrice() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("price"), filter.getMinPrice()));
+            }
+            if (filter.getMaxPrice() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("price"), filter.getMaxPrice()));
+            }
+            if (filter.getInStock() != null) {
+                predicates.add(cb.equal(root.get("inStock"), filter.getInStock()));
+            }
+            if (filter.getBadge() != null && !filter.getBadge().isBlank()) {
+                predicates.add(cb.equal(root.get("badge"), filter.getBadge()));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /*
+     * Keyed sorts page in two sections, nulls last: rows with a sort key in (sortKey, id) order,
+     * then rows without one in id order (same direction). Each section is an index range scan.
+     * A cursor whose value is null points into the second section.
+     */
+
+    // Rows with a sort key strictly after the cursor; none once the cursor is in the null section
+    public static Specification<Product> after(ProductSort sort, KeysetCursor cursor) {
+        return (root, query, cb) -> {
+            Path<Long> id = root.get("id");
+
+            switch (sort) {
+                case PRICE_ASC:
+                case PRICE_DESC: {
+                    Path<Double> price = root.get("price");
+                    if (cursor == null) {
+                        return cb.isNotNull(price);
+                    }
+                    if (cursor.getValue() == null) {
+                        return cb.disjunction();
+                    }
+                    Double value = Double.valueOf(cursor.getValue());
+                    return seek(cb, price, value, id, cursor.getId(), sort == ProductSort.PRICE_ASC);
+                }
+                case NAME_ASC: {
+                    Path<String> name = root.get("name");
+                    if (cursor == null) {
+                        return cb.isNotNull(name);
+                    }
+                    if (cursor.getValue() == null) {
+                        return cb.disjunction();
+                    }
+                    return seek(cb, name, cursor.getValue(), id, cursor.getId(), true);
+                }
+                case NEWEST:
+                default:
+                    return cursor == null ? null : cb.lessThan(id, cursor.getId());
+            }
+        };
+    }
+
+    // Rows without a sort key after the cursor, for keyed sorts; pair with nullKeySortFor
+    public static Specification<Product> nullKeyAfter(ProductSort sort, KeysetCursor cursor) {
+        return (root, query, cb) -> {
+            Path<Long> id = root.get("id");
+            Predicate isNull = cb.isNull(root.get(sortKey(sort)));
+            if (cursor == null || cursor.getValue() != null) {
+                return isNull;
+            }
+            return cb.and(isNull, ascending(sort) ? cb.greaterThan(id, cursor.getId()) : cb.lessThan(id, cursor.getId()));
+        };
+    }
+
+    // False for sorts whose key is never null (NEWEST sorts by id alone)
+    public static boolean hasNullKeys(ProductSort sort) {
+        return sortKey(sort) != null;
+    }
+
+    public static Sort sortFor(ProductSort sort) {
+        switch (sort) {
+            case PRICE_ASC:
+                return Sort.by(Sort.Order.asc("price"), Sort.Order.asc("id"));
+            case PRICE_DESC:
+                return Sort.by(Sort.Order.desc("price"), Sort.Order.desc("id"));
+            case NAME_ASC:
+                return Sort.by(Sort.Order.asc("name"), Sort.Order.asc("id"));
+            case NEWEST:
+            default:
+                return Sort.by(Sort.Order.desc("id"));
+        }
+    }
+
+    public static Sort nullKeySortFor(ProductSort sort) {
+        return Sort.by(ascending(sort) ? Sort.Order.asc("id") : Sort.Order.desc("id"));
+    }
+
+    // Null for a row in the null section, which puts the next cursor there too
+    public static String sortValueOf(ProductSort sort, Product product) {
+        switch (sort) {
+            case PRICE_ASC:
+            case PRICE_DESC:
+                return product.getPrice() == null ? null : String.valueOf(product.getPrice());
+            case NAME_ASC:
+                return product.getName();
+            case NEWEST:
+            default:
+                return null;
+        }
+    }
+
+    private static String sortKey(ProductSort sort) {
+        switch (sort) {
+            case PRICE_ASC:
+            case PRICE_DESC:
+                return "price";
+            case NAME_ASC:
+                return "name";
+            case NEWEST:
+            default:
+                return null;
+        }
+    }
+
+    private static boolean ascending(ProductSort sort) {
+        return sort == ProductSort.PRICE_ASC || sort == ProductSort.NAME_ASC;
+    }
+
+    private static <T extends Comparable<? super T>> Predicate seek(
+            CriteriaBuilder cb,
+            Path<T> key,
+            T value,
+            Path<Long> id,
+            Long lastId,
+            boolean ascending
+    ) {
+        if (ascending) {
+            return cb.or(
+                    cb.greaterThan(key, value),
+                    cb.and(cb.equal(key, value), cb.greaterThan(id, lastId))
+            );
+        }
+        return cb.or(
+                cb.lessThan(key, value),
+                cb.and(cb.equal(key, value), cb.lessThan(id, lastId))
+        );
+    }
+}
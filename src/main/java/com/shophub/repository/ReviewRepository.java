@@ -1,9 +1,15 @@
 package com.shophub.repository;
 
+import com.shophub.dto.ReviewView;
 import com.shophub.model.Review;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -23,4 +29,42 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
 
     // ✅ Count reviews for a product
     long countByProductId(Long productId);
+
+    // Projections for the review feeds, newest first with id as tie-breaker (keyset on createdAt, id)
+    String VIEW = "SELECT new com.shophub.dto.ReviewView(r.id, p.id, p.name, r.rating, r.comment, " +
+            "r.username, r.verified, r.createdAt) FROM Review r JOIN r.product p ";
+    String NEWEST = " ORDER BY r.createdAt DESC, r.id DESC";
+    String AFTER = " AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id))";
+    // Legacy rows without a created_at cannot be expressed as a cursor, so the paged feeds skip them
+    String DATED = " AND r.createdAt IS NOT NULL";
+
+    @Query(VIEW + "WHERE r.product.id = :productId" + NEWEST)
+    List<ReviewView> findViewsByProduct(@Param("productId") Long productId, Pageable pageable);
+
+    @Query(VIEW + "WHERE r.product.id = :productId" + DATED + NEWEST)
+    List<ReviewView> findDatedViewsByProduct(@Param("productId") Long productId, Pageable pageable);
+
+    @Query(VIEW + "WHERE r.product.id = :productId" + DATED + AFTER + NEWEST)
+    List<ReviewView> findViewsByProductAfter(@Param("productId") Long productId,
+                                             @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("id") Long id,
+                                             Pageable pageable);
+
+    @Query(VIEW + "WHERE r.user.id = :userId" + NEWEST)
+    List<ReviewView> findViewsByUser(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(VIEW + "WHERE r.user.id = :userId" + DATED + NEWEST)
+    List<ReviewView> findDatedViewsByUser(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(VIEW + "WHERE r.user.id = :userId" + DATED + AFTER + NEWEST)
+    List<ReviewView> findViewsByUserAfter(@Param("userId") Long userId,
+                                          @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("id") Long id,
+                                          Pageable pageable);
+
+    // Rows are [productId, rating, count]; used to (re)build rating aggregates.
+    // Legacy ratings outside 1-5 are skipped so the star histogram always sums to the review count.
+    @Query("SELECT r.product.id, r.rating, COUNT(r) FROM Review r " +
+            "WHERE r.product.id IN :productIds AND r.rating BETWEEN 1 AND 5 GROUP BY r.product.id, r.rating")
+    List<Object[]> countRatingsByProduct(@Param("productIds") Collection<Long> productIds);
 }
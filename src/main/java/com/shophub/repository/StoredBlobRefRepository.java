@@ -0,0 +1,9 @@
+package com.shophub.repository;
+
+import com.shophub.model.StoredBlobRef;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StoredBlobRefRepository extends JpaRepository<StoredBlobRef, StoredBlobRef.Key> {
+}
@@ -0,0 +1,35 @@
+package com.shophub.repository;
+
+import com.shophub.model.StoredBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String> {
+
+    // SELECT ... FOR UPDATE: placing a blob's file and sweeping it never interleave
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM StoredBlob b WHERE b.hash = :hash")
+    Optional<StoredBlob> findByIdForUpdate(@Param("hash") String hash);
+
+    // Row-locking no-op for a blob that is in use; restarts the sweep grace period of an unreferenced one
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredBlob b SET b.releasedAt = CASE WHEN b.refCount = 0 THEN :now ELSE b.releasedAt END " +
+            "WHERE b.hash = :hash")
+    int touch(@Param("hash") String hash, @Param("now") LocalDateTime now);
+
+    @Query("SELECT b.hash FROM StoredBlob b WHERE b.refCount = 0 AND b.releasedAt < :cutoff ORDER BY b.releasedAt")
+    List<String> findReleasedBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+}
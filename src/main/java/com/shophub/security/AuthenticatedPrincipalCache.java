@@ -0,0 +1,64 @@
+package com.shophub.security;
+
+import com.shophub.cache.BoundedTtlCache;
+import com.shophub.cache.CacheStats;
+import com.shophub.model.User;
+import com.shophub.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Short-lived cache of the User principal per email so the JWT filter does not
+ * hit the users table on every request. Anything that writes a User row must
+ * call {@link #invalidate(String)} for the affected email(s); the TTL only
+ * bounds how long a missed invalidation can linger.
+ * <p>
+ * Cached users are detached and shared between requests - treat them as read-only.
+ */
+@Component
+public class AuthenticatedPrincipalCache {
+
+    private final UserRepository userRepository;
+    private final BoundedTtlCache<String, User> principals;
+
+    public AuthenticatedPrincipalCache(UserRepository userRepository,
+                                       @Value("${auth.principal-cache.max-size:5000}") int maxSize,
+                                       @Value("${auth.principal-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.principals = new BoundedTtlCache<>("auth.principals", maxSize, ttlSeconds * 1000L);
+    }
+
+    // Null when no user has this email; misses are not cached
+    public User get(String email) {
+        return principals.getOrLoad(email, key -> userRepository.findByEmail(key).orElse(null));
+    }
+
+    public void invalidate(String email) {
+        if (email != null) {
+            principals.invalidate(email);
+        }
+    }
+
+    // Inside a transaction a concurrent request could re-cache the old row before commit, so evict again afterwards
+    public void invalidateAfterCommit(String email) {
+        invalidate(email);
+        if (email != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(email);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        principals.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return principals.stats();
+    }
+}
@@ -2,7 +2,7 @@ package com.shophub.security;
 
 import com.shophub.exception.UnauthorizedException;
 import com.shophub.model.User;
-import com.shophub.repository.UserRepository;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -25,7 +25,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private JwtTokenProvider jwtTokenProvider;
 
     @Autowired
-    private UserRepository userRepository;
+    private AuthenticatedPrincipalCache principalCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -34,17 +34,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = extractJwtFromRequest(request);
 
-            if (jwt != null && jwtTokenProvider.validateToken(jwt)) {
-                String email = jwtTokenProvider.getEmailFromToken(jwt);
-                String role = jwtTokenProvider.getRoleFromToken(jwt);
-                Boolean sessionActive = jwtTokenProvider.getSessionFromToken(jwt);
+            JwtClaims claims = (jwt != null) ? parseOrNull(jwt) : null;
+
+            if (claims != null) {
+                String email = claims.getEmail();
+                String role = claims.getRole();
+                Boolean sessionActive = claims.getSession();
 
                 if (email == null || role == null) {
                     throw new IllegalArgumentException("Missing required JWT claims");
                 }
 
-                User user = userRepository.findByEmail(email)
-                        .orElseThrow(() -> new UnauthorizedException("User not found"));
+                User user = principalCache.get(email);
+                if (user == null) {
+                    throw new UnauthorizedException("User not found");
+                }
 
                 if ("ROLE_ADMIN".equals(role)) {
                     if (!Boolean.TRUE.equals(sessionActive) ||
@@ -76,6 +80,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    // Invalid tokens are ignored here, as before: the request continues unauthenticated
+    private JwtClaims parseOrNull(String jwt) {
+        try {
+            return jwtTokenProvider.parseToken(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     private String extractJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
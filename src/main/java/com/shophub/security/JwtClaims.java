@@ -0,0 +1,21 @@
+package com.shophub.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+
+// Verified claims of a JWT; immutable so one instance can be shared by the verified-token cache
+@Getter
+@AllArgsConstructor
+public class JwtClaims {
+    private final String email;
+    private final String role;
+    private final Boolean session;
+    private final String type;
+    private final Date expiresAt;
+
+    public boolean isRefreshToken() {
+        return "REFRESH".equals(type);
+    }
+}
@@ -1,5 +1,7 @@
 package com.shophub.security;
 
+import com.shophub.cache.BoundedTtlCache;
+import com.shophub.cache.CacheStats;
 import com.shophub.dto.AuthResponse;
 import com.shophub.service.RefreshTokenService;
 import io.jsonwebtoken.*;
@@ -10,6 +12,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 
 import com.shophub.model.User;
@@ -27,8 +32,17 @@ public class JwtTokenProvider {
     @Value("${jwt.refresh-token-expiration}")
     private long refreshTokenExpiration;
 
+    @Value("${jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
     private SecretKey key;
 
+    // Immutable and thread-safe once built; shared by every request
+    private JwtParser parser;
+
+    // SHA-256(token) -> verified claims, kept until the token itself expires
+    private BoundedTtlCache<String, JwtClaims> verifiedTokens;
+
     @Autowired
     private RefreshTokenService refreshTokenService;
 
@@ -44,6 +58,50 @@ public class JwtTokenProvider {
         }
 
         this.key = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
+        this.verifiedTokens = new BoundedTtlCache<>(
+                "jwt.verified",
+                verifiedCacheSize,
+                Math.max(accessTokenExpiration, refreshTokenExpiration)
+        );
+    }
+
+    /**
+     * Verifies the signature and expiry once and returns every claim the app uses.
+     * Repeat calls with the same token are served from the verified-token cache.
+     *
+     * @throws JwtException if the token is malformed, tampered with or expired
+     */
+    public JwtClaims parseToken(String token) {
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("JWT must not be blank");
+        }
+
+        String cacheKey = hash(token);
+        JwtClaims cached = verifiedTokens.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        JwtClaims parsed = new JwtClaims(
+                claims.getSubject(),
+                claims.get("role", String.class),
+                claims.get("session", Boolean.class),
+                claims.get("type", String.class),
+                claims.getExpiration()
+        );
+
+        if (parsed.getExpiresAt() != null) {
+            verifiedTokens.put(cacheKey, parsed, parsed.getExpiresAt().getTime());
+        }
+        return parsed;
+    }
+
+    public CacheStats verifiedTokenCacheStats() {
+        return verifiedTokens.stats();
     }
 
     public String generateAccessToken(String email, String role) {
@@ -131,51 +189,24 @@ public class JwtTokenProvider {
     }
 
     public String getEmailFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.getSubject();
+        return parseToken(token).getEmail();
     }
 
     public String getRoleFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.get("role", String.class);
+        return parseToken(token).getRole();
     }
 
     public Boolean getSessionFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.get("session", Boolean.class);
+        return parseToken(token).getSession();
     }
 
     public boolean isRefreshToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return "REFRESH".equals(claims.get("type"));
+        return parseToken(token).isRefreshToken();
     }
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token);
+            parseToken(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
@@ -189,4 +220,14 @@ public class JwtTokenProvider {
     public long getRefreshTokenValidity() {
         return Math.max(0L, refreshTokenExpiration / 1000L);
     }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 }
@@ -0,0 +1,236 @@
+package com.shophub.service;
+
+import com.shophub.dto.RemoteAsset;
+import com.shophub.model.PendingAssetDeletion;
+import com.shophub.repository.PendingAssetDeletionRepository;
+import com.shophub.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Deletes stored images that no product references any more, off the request path.
+ * Callers {@link #enqueue} public ids into pending_asset_deletions; a scheduled drain
+ * deletes them in provider-sized batches with exponential backoff on failure.
+ * A periodic reconcile lists the provider's product folder and queues assets that no
+ * product points at (uploads whose save never happened, deletes that were given up).
+ * <p>
+ * An id is re-checked against products right before deletion, so an image that came
+ * back into use while queued is dropped from the queue instead of deleted.
+ */
+@Component
+public class AssetGarbageCollector {
+
+    private static final Logger log = LoggerFactory.getLogger(AssetGarbageCollector.class);
+
+    private static final int REFERENCE_CHUNK = 500;
+
+    private final PendingAssetDeletionRepository pendingRepository;
+    private final ProductRepository productRepository;
+    private final ImageStorageProvider storage;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final boolean reconcileEnabled;
+    private final Duration orphanGrace;
+
+    public AssetGarbageCollector(PendingAssetDeletionRepository pendingRepository,
+                                 ProductRepository productRepository,
+                                 ImageStorageProvider storage,
+                                 @Value("${assets.gc.max-attempts:10}") int maxAttempts,
+                                 @Value("${assets.gc.base-backoff-ms:60000}") long baseBackoffMillis,
+                                 @Value("${assets.gc.max-backoff-ms:21600000}") long maxBackoffMillis,
+                                 @Value("${assets.gc.reconcile.enabled:true}") boolean reconcileEnabled,
+                                 @Value("${assets.gc.reconcile.orphan-grace-hours:24}") long orphanGraceHours) {
+        this.pendingRepository = pendingRepository;
+        this.productRepository = productRepository;
+        this.storage = storage;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.reconcileEnabled = reconcileEnabled;
+        this.orphanGrace = Duration.ofHours(orphanGraceHours);
+    }
+
+    public void enqueue(Collection<String> publicIds) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (String publicId : publicIds) {
+            if (publicId != null && !publicId.isBlank()) {
+                ids.add(publicId);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        ids.removeAll(pendingRepository.findQueued(ids));
+        List<PendingAssetDeletion> rows = new ArrayList<>(ids.size());
+        for (String publicId : ids) {
+            PendingAssetDeletion row = new PendingAssetDeletion();
+            row.setPublicId(publicId);
+            rows.add(row);
+        }
+        pendingRepository.saveAll(rows);
+    }
+
+    @Scheduled(
+            initialDelayString = "${assets.gc.poll-interval-ms:30000}",
+            fixedDelayString = "${assets.gc.poll-interval-ms:30000}"
+    )
+    public void drain() {
+        int batchSize = storage.maxDeleteBatchSize();
+        while (true) {
+            List<PendingAssetDeletion> due = pendingRepository.findDue(LocalDateTime.now(), PageRequest.of(0, batchSize));
+            if (due.isEmpty()) {
+                return;
+            }
+
+            List<String> ids = new ArrayList<>(due.size());
+            due.forEach(row -> ids.add(row.getPublicId()));
+
+            Set<String> stillReferenced = referencedPublicIds(ids);
+            List<String> toDelete = new ArrayList<>(ids);
+            toDelete.removeAll(stillReferenced);
+
+            Set<String> gone = Set.of();
+            String error = "Provider did not confirm deletion";
+            if (!toDelete.isEmpty()) {
+                try {
+                    gone = storage.deleteBatch(toDelete);
+                } catch (IOException e) {
+                    log.warn("Asset deletion call failed for {} id(s)", toDelete.size(), e);
+                    error = describe(e);
+                }
+            }
+
+            Set<String> finished = new HashSet<>(stillReferenced);
+            finished.addAll(gone);
+            List<PendingAssetDeletion> retry = new ArrayList<>();
+            for (PendingAssetDeletion row : due) {
+                if (finished.contains(row.getPublicId())) {
+                    continue;
+                }
+                row.setAttempts(row.getAttempts() + 1);
+                if (row.getAttempts() >= maxAttempts) {
+                    // Leaves an orphan; the next reconcile finds and queues it again
+                    log.error("Giving up deleting asset {} after {} attempts", row.getPublicId(), row.getAttempts());
+                    finished.add(row.getPublicId());
+                    continue;
+                }
+                row.setLastError(error);
+                row.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(backoffMillis(row.getAttempts()))));
+                retry.add(row);
+            }
+
+            if (!finished.isEmpty()) {
+                pendingRepository.deleteAllByIdInBatch(finished);
+            }
+            if (!retry.isEmpty()) {
+                pendingRepository.saveAll(retry);
+                log.warn("Asset deletion failed for {} of {} ids; retrying later", retry.size(), due.size());
+            }
+
+            // Everything left over is backing off, so stop instead of spinning on the same rows
+            if (due.size() < batchSize || !retry.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    @Scheduled(
+            initialDelayString = "${assets.gc.reconcile.initial-delay-ms:600000}",
+            fixedDelayString = "${assets.gc.reconcile.interval-ms:21600000}"
+    )
+    public void reconcile() {
+        if (!reconcileEnabled) {
+            return;
+        }
+
+        List<RemoteAsset> assets;
+        try {
+            assets = storage.listAssets(ProductService.PRODUCT_IMAGE_FOLDER);
+        } catch (IOException e) {
+            log.warn("Asset reconcile skipped: could not list stored images", e);
+            return;
+        }
+
+        // Recent uploads may belong to a product save that has not committed yet
+        Instant cutoff = Instant.now().minus(orphanGrace);
+        List<RemoteAsset> candidates = new ArrayList<>();
+        for (RemoteAsset asset : assets) {
+            if (asset.getCreatedAt().isBefore(cutoff)) {
+                candidates.add(asset);
+            }
+        }
+
+        int orphans = 0;
+        for (int from = 0; from < candidates.size(); from += REFERENCE_CHUNK) {
+            List<RemoteAsset> chunk = candidates.subList(from, Math.min(from + REFERENCE_CHUNK, candidates.size()));
+            List<String> ids = new ArrayList<>(chunk.size());
+            List<String> urls = new ArrayList<>(chunk.size());
+            for (RemoteAsset asset : chunk) {
+                ids.add(asset.getPublicId());
+                urls.add(asset.getUrl());
+            }
+
+            Set<String> referencedIds = referencedPublicIds(ids);
+            Set<String> referencedUrls = referencedUrls(urls);
+            List<String> unreferenced = new ArrayList<>();
+            for (RemoteAsset asset : chunk) {
+                if (!referencedIds.contains(asset.getPublicId()) && !referencedUrls.contains(asset.getUrl())) {
+                    unreferenced.add(asset.getPublicId());
+                }
+            }
+
+            enqueue(unreferenced);
+            orphans += unreferenced.size();
+        }
+
+        if (orphans > 0) {
+            log.info("Asset reconcile queued {} orphaned image(s) of {} stored", orphans, assets.size());
+        }
+    }
+
+    private Set<String> referencedPublicIds(Collection<String> publicIds) {
+        Set<String> referenced = new HashSet<>(productRepository.findReferencedMainPublicIds(publicIds));
+        referenced.addAll(productRepository.findReferencedAdditionalPublicIds(publicIds));
+        return referenced;
+    }
+
+    private Set<String> referencedUrls(Collection<String> urls) {
+        Set<String> referenced = new HashSet<>(productRepository.findReferencedMainImageUrls(urls));
+        referenced.addAll(productRepository.findReferencedAdditionalImageUrls(urls));
+        return referenced;
+    }
+
+    private long backoffMillis(int attempt) {
+        long backoff = baseBackoffMillis << Math.min(Math.max(attempt - 1, 0), 20);
+        backoff = Math.min(backoff, maxBackoffMillis);
+        return backoff + ThreadLocalRandom.current().nextLong(backoff / 5 + 1);
+    }
+
+    // Root cause for last_error, fitted to the column
+    private static String describe(Exception e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        String text = root.getClass().getSimpleName() + ": " + root.getMessage();
+        return text.length() > 1000 ? text.substring(0, 1000) : text;
+    }
+}
@@ -8,6 +8,7 @@ import com.shophub.model.RefreshToken;
 import com.shophub.model.Role;
 import com.shophub.model.User;
 import com.shophub.repository.UserRepository;
+import com.shophub.security.AuthenticatedPrincipalCache;
 import com.shophub.security.JwtTokenProvider;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -26,6 +27,7 @@ public class AuthService {
     private final RefreshTokenService refreshTokenService;
     private final UserRepository userRepository;
     private final AuthenticationManager authenticationManager;
+    private final AuthenticatedPrincipalCache principalCache;
 
     // ===================== LOGIN =====================
         @Transactional(noRollbackFor = BadCredentialsException.class)
@@ -55,6 +57,7 @@ public class AuthService {
             }
 
             userRepository.saveAndFlush(user); // 🔥 force DB write
+            principalCache.invalidateAfterCommit(user.getEmail());
             throw ex;
         }
 
@@ -67,6 +70,7 @@ public class AuthService {
                 }
 
         userRepository.saveAndFlush(user);
+        principalCache.invalidateAfterCommit(user.getEmail());
 
         return tokenProvider.generateTokens(user);
     }
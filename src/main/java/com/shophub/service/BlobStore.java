@@ -0,0 +1,286 @@
+package com.shophub.service;
+
+import com.shophub.model.StoredBlob;
+import com.shophub.model.StoredBlobRef;
+import com.shophub.repository.StoredBlobRefRepository;
+import com.shophub.repository.StoredBlobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed store for uploaded images under {@code <uploads>/blobs/ab/cd/<sha256>.<ext>}.
+ * The content is hashed while it is copied to disk, so an identical upload reuses the file
+ * (and its URL, which browsers then already have cached) instead of storing another copy.
+ * <p>
+ * References are held per owner (a category, a product image's public id): {@link #acquire}
+ * and {@link #release} are idempotent for the same owner, so a retried delete or two owners
+ * sharing one file can never drop a reference twice. A blob nobody references (including one
+ * just stored and not yet acquired) is deleted by a scheduled sweep after a grace period.
+ * Storing, acquiring, releasing and sweeping all lock the blob's row, so a blob coming back
+ * into use while it is being swept gets its file written again rather than losing it.
+ */
+@Service
+public class BlobStore {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobStore.class);
+
+    public static final String URL_PREFIX = "/uploads/blobs/";
+
+    private static final Pattern BLOB_NAME = Pattern.compile("[0-9a-f]{64}(\\.[a-z0-9]{1,9})?");
+    private static final Pattern EXTENSION = Pattern.compile("\\.[a-z0-9]{1,9}");
+    private static final int SWEEP_BATCH = 100;
+
+    private final StoredBlobRepository repository;
+    private final StoredBlobRefRepository refRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ImageDerivativeService derivativeService;
+    private final Path blobRoot;
+    private final Duration sweepGrace;
+
+    public BlobStore(StoredBlobRepository repository,
+                     StoredBlobRefRepository refRepository,
+                     TransactionTemplate transactionTemplate,
+                     ImageDerivativeService derivativeService,
+                     @Value("${image.storage.local-root:uploads}") String root,
+                     @Value("${blobs.sweep.grace-minutes:60}") long sweepGraceMinutes) {
+        this.repository = repository;
+        this.refRepository = refRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.derivativeService = derivativeService;
+        this.blobRoot = Paths.get(root).toAbsolutePath().normalize().resolve("blobs");
+        this.sweepGrace = Duration.ofMinutes(sweepGraceMinutes);
+    }
+
+    /**
+     * Stores the stream, or finds identical content already stored. The blob has no owner yet:
+     * {@link #acquire} it once the owning row is saved, within the sweep grace period.
+     *
+     * @param extension file extension including the dot, e.g. ".jpg"
+     */
+    public StoredBlob store(InputStream content, String extension) throws IOException {
+        Files.createDirectories(blobRoot);
+        Path temp = Files.createTempFile(blobRoot, ".incoming-", ".tmp");
+        try {
+            MessageDigest sha256 = sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(content, sha256)) {
+                size = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(sha256.digest());
+            String normalized = normalizeExtension(extension);
+
+            try {
+                return placeStored(hash, normalized, size, temp);
+            } catch (DataIntegrityViolationException e) {
+                // Another request stored the same content first; use its row
+                return placeStored(hash, normalized, size, temp);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public StoredBlob store(Path file, String extension) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return store(in, extension);
+        }
+    }
+
+    /**
+     * Records that {@code owner} uses the blob addressed by {@code url}. Acquiring it again is a no-op.
+     *
+     * @return false when the url is not a blob (e.g. an external icon URL) or the blob is gone
+     */
+    public boolean acquire(String owner, String url) {
+        String name = blobName(url);
+        if (name == null) {
+            return false;
+        }
+        String hash = hashOf(name);
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            StoredBlob blob = repository.findByIdForUpdate(hash).orElse(null);
+            if (blob == null) {
+                return false;
+            }
+            if (!refRepository.existsById(new StoredBlobRef.Key(owner, hash))) {
+                refRepository.save(new StoredBlobRef(owner, hash));
+                blob.setRefCount(blob.getRefCount() + 1);
+                blob.setReleasedAt(null);
+            }
+            return true;
+        }));
+    }
+
+    /**
+     * Drops {@code owner}'s reference to the blob addressed by {@code url}, if it has one.
+     * Urls that are not blobs are ignored.
+     */
+    public void release(String owner, String url) {
+        String name = blobName(url);
+        if (name == null) {
+            return;
+        }
+        String hash = hashOf(name);
+        transactionTemplate.executeWithoutResult(status -> {
+            StoredBlob blob = repository.findByIdForUpdate(hash).orElse(null);
+            StoredBlobRef.Key key = new StoredBlobRef.Key(owner, hash);
+            if (blob == null || !refRepository.existsById(key)) {
+                return;
+            }
+            refRepository.deleteById(key);
+            blob.setRefCount(blob.getRefCount() - 1);
+            if (blob.getRefCount() == 0) {
+                blob.setReleasedAt(LocalDateTime.now());
+            }
+        });
+    }
+
+    public static String url(StoredBlob blob) {
+        return URL_PREFIX + shardedPath(name(blob));
+    }
+
+    public static String name(StoredBlob blob) {
+        return blob.getHash() + blob.getExtension();
+    }
+
+    /**
+     * The blob file name ({@code <sha256>.<ext>}) addressed by a blob url or bare name, or null.
+     */
+    public static String blobName(String urlOrName) {
+        if (urlOrName == null) {
+            return null;
+        }
+        String name = urlOrName.startsWith(URL_PREFIX)
+                ? urlOrName.substring(urlOrName.lastIndexOf('/') + 1)
+                : urlOrName;
+        return BLOB_NAME.matcher(name).matches() ? name : null;
+    }
+
+    @Scheduled(
+            initialDelayString = "${blobs.sweep.interval-ms:900000}",
+            fixedDelayString = "${blobs.sweep.interval-ms:900000}"
+    )
+    public void sweep() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(sweepGrace);
+        int deleted = 0;
+        while (true) {
+            List<String> hashes = repository.findReleasedBefore(cutoff, PageRequest.of(0, SWEEP_BATCH));
+            int before = deleted;
+            for (String hash : hashes) {
+                try {
+                    Boolean swept = transactionTemplate.execute(status -> sweep(hash));
+                    if (Boolean.TRUE.equals(swept)) {
+                        deleted++;
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Could not delete unreferenced blob {}", hash, e);
+                }
+            }
+            // A short page, or one where nothing could be deleted, means we are done for this round
+            if (hashes.size() < SWEEP_BATCH || deleted == before) {
+                break;
+            }
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} unreferenced blob(s)", deleted);
+        }
+    }
+
+    // Re-checked under the row lock: a store that raced the query above has raised the count again
+    private boolean sweep(String hash) {
+        StoredBlob blob = repository.findByIdForUpdate(hash).orElse(null);
+        if (blob == null || blob.getRefCount() > 0) {
+            return false;
+        }
+        Path file = pathOf(blob);
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        derivativeService.deleteVariants(file);
+        repository.delete(blob);
+        return true;
+    }
+
+    // The file is placed while the row is locked, so a committed row always has its file
+    private StoredBlob placeStored(String hash, String extension, long size, Path temp) {
+        return transactionTemplate.execute(status -> {
+            // Touching takes the row lock; a row that does not exist yet is inserted instead
+            StoredBlob blob;
+            if (repository.touch(hash, LocalDateTime.now()) > 0) {
+                blob = repository.findById(hash).orElseThrow();
+            } else {
+                blob = new StoredBlob();
+                blob.setHash(hash);
+                blob.setExtension(extension);
+                blob.setSize(size);
+                blob.setReleasedAt(LocalDateTime.now());
+                blob = repository.saveAndFlush(blob);
+            }
+
+            Path target = pathOf(blob);
+            if (!Files.exists(target)) {
+                try {
+                    Files.createDirectories(target.getParent());
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                derivativeService.generateAsync(target);
+            }
+            return blob;
+        });
+    }
+
+    private Path pathOf(StoredBlob blob) {
+        return blobRoot.resolve(shardedPath(name(blob)));
+    }
+
+    // Two levels of 256 directories keep each one small
+    private static String shardedPath(String name) {
+        return name.substring(0, 2) + "/" + name.substring(2, 4) + "/" + name;
+    }
+
+    private static String hashOf(String name) {
+        return name.substring(0, 64);
+    }
+
+    private static String normalizeExtension(String extension) {
+        String lower = extension == null ? "" : extension.toLowerCase(Locale.ROOT);
+        return EXTENSION.matcher(lower).matches() ? lower : "";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
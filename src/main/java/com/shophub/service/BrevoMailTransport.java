@@ -0,0 +1,173 @@
+package com.shophub.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shophub.dto.MailTransportStats;
+import com.shophub.dto.OutgoingEmail;
+import com.shophub.exception.MailDeliveryException;
+import com.shophub.metrics.LatencyHistogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Brevo transactional email API over a single shared JDK HttpClient, which keeps
+ * connections alive and reuses them (and their TLS sessions) across messages.
+ * The endpoint is configurable so a local stub server can stand in for Brevo.
+ * Batches use Brevo's messageVersions: one request, one version per message.
+ */
+@Component
+public class BrevoMailTransport implements MailTransport {
+
+    private static final int MAX_ERROR_BODY = 500;
+
+    // Brevo accepts at most 1000 message versions per request
+    private static final int MAX_MESSAGE_VERSIONS = 1000;
+
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+    private final URI endpoint;
+    private final Duration requestTimeout;
+    private final String apiKey;
+    private final Map<String, String> sender;
+
+    private final LatencyHistogram latency = new LatencyHistogram("mail.brevo.send");
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final Map<String, LongAdder> failuresByStatus = new ConcurrentHashMap<>();
+
+    public BrevoMailTransport(ObjectMapper objectMapper,
+                              @Value("${BREVO_API_KEY}") String apiKey,
+                              @Value("${MAIL_FROM}") String mailFrom,
+                              @Value("${MAIL_FROM_NAME}") String mailFromName,
+                              @Value("${mail.brevo.url:https://api.brevo.com/v3/smtp/email}") String endpoint,
+                              @Value("${mail.http.connect-timeout-ms:3000}") long connectTimeoutMillis,
+                              @Value("${mail.http.request-timeout-ms:10000}") long requestTimeoutMillis) {
+        this.objectMapper = objectMapper;
+        this.apiKey = apiKey;
+        this.sender = Map.of("email", mailFrom, "name", mailFromName);
+        this.endpoint = URI.create(endpoint);
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMillis);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    @Override
+    public void send(String to, String subject, String htmlContent) {
+        post(Map.of(
+                "sender", sender,
+                "to", List.of(Map.of("email", to)),
+                "subject", subject,
+                "htmlContent", htmlContent
+        ), 1);
+    }
+
+    @Override
+    public void sendBatch(List<OutgoingEmail> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        if (messages.size() == 1) {
+            OutgoingEmail only = messages.get(0);
+            send(only.getTo(), only.getSubject(), only.getHtmlContent());
+            return;
+        }
+        if (messages.size() > MAX_MESSAGE_VERSIONS) {
+            throw new IllegalArgumentException("Brevo batches are limited to " + MAX_MESSAGE_VERSIONS + " messages");
+        }
+
+        List<Map<String, Object>> versions = new ArrayList<>(messages.size());
+        for (OutgoingEmail message : messages) {
+            versions.add(Map.of(
+                    "to", List.of(Map.of("email", message.getTo())),
+                    "subject", message.getSubject(),
+                    "htmlContent", message.getHtmlContent()
+            ));
+        }
+
+        // Top-level subject/htmlContent are required by the API; every version overrides them
+        OutgoingEmail first = messages.get(0);
+        post(Map.of(
+                "sender", sender,
+                "subject", first.getSubject(),
+                "htmlContent", first.getHtmlContent(),
+                "messageVersions", versions
+        ), messages.size());
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return MAX_MESSAGE_VERSIONS;
+    }
+
+    private void post(Map<String, Object> payload, int messageCount) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(endpoint)
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .header("Accept", "application/json")
+                    .header("api-key", apiKey)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(payload)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new MailDeliveryException("Could not serialize email payload", e);
+        }
+
+        requests.increment();
+        long started = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            recordFailure("io", started, messageCount);
+            throw new MailDeliveryException("Brevo request failed: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            recordFailure("io", started, messageCount);
+            throw new MailDeliveryException("Brevo request interrupted", e);
+        }
+
+        if (response.statusCode() / 100 != 2) {
+            recordFailure(String.valueOf(response.statusCode()), started, messageCount);
+            String body = response.body() == null ? "" : response.body();
+            throw new MailDeliveryException(
+                    response.statusCode(),
+                    "Brevo email failed (" + response.statusCode() + "): "
+                            + (body.length() > MAX_ERROR_BODY ? body.substring(0, MAX_ERROR_BODY) : body)
+            );
+        }
+
+        latency.recordNanos(System.nanoTime() - started);
+        sent.add(messageCount);
+    }
+
+    @Override
+    public MailTransportStats stats() {
+        Map<String, Long> failures = new TreeMap<>();
+        failuresByStatus.forEach((status, count) -> failures.put(status, count.sum()));
+        return new MailTransportStats(requests.sum(), sent.sum(), failed.sum(), failures, latency.snapshot());
+    }
+
+    private void recordFailure(String status, long started, int messageCount) {
+        latency.recordNanos(System.nanoTime() - started);
+        failed.add(messageCount);
+        failuresByStatus.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+}
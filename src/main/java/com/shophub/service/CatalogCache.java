@@ -0,0 +1,142 @@
+package com.shophub.service;
+
+import com.shophub.cache.BoundedTtlCache;
+import com.shophub.cache.CacheStats;
+import com.shophub.dto.CursorPage;
+import com.shophub.model.OrderStatus;
+import com.shophub.model.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache in front of ProductRepository for storefront reads.
+ * Entries are shared across requests, so callers must treat them as read-only.
+ */
+@Component
+public class CatalogCache {
+
+    public static final String ALL_KEY = "all";
+    public static final String ADMIN_KEY = "admin";
+    public static final String SALE_KEY = "sale";
+    private static final String CATEGORY_PREFIX = "category:";
+    private static final String PAGE_PREFIX = "page:";
+
+    private final BoundedTtlCache<Long, Product> products;
+    private final BoundedTtlCache<String, List<Product>> lists;
+    private final BoundedTtlCache<String, CursorPage<Product>> pages;
+
+    public CatalogCache(
+            @Value("${catalog.cache.max-products:2000}") int maxProducts,
+            @Value("${catalog.cache.max-lists:200}") int maxLists,
+            @Value("${catalog.cache.ttl-seconds:60}") long ttlSeconds
+    ) {
+        long ttlMillis = ttlSeconds * 1000L;
+        this.products = new BoundedTtlCache<>("catalog.products", maxProducts, ttlMillis);
+        this.lists = new BoundedTtlCache<>("catalog.lists", maxLists, ttlMillis);
+        this.pages = new BoundedTtlCache<>("catalog.pages", maxLists, ttlMillis);
+    }
+
+    public Product getProduct(Long id, Supplier<Product> loader) {
+        return products.getOrLoad(id, key -> loader.get());
+    }
+
+    // Cached products in the given order; misses are loaded together in one call
+    public List<Product> getProducts(List<Long> ids, Function<List<Long>, List<Product>> loader) {
+        Map<Long, Product> found = products.getAllOrLoad(ids, missing -> {
+            Map<Long, Product> loaded = new HashMap<>();
+            for (Product product : loader.apply(missing)) {
+                loaded.put(product.getId(), product);
+            }
+            return loaded;
+        });
+
+        List<Product> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product product = found.get(id);
+            if (product != null) {
+                result.add(product);
+            }
+        }
+        return result;
+    }
+
+    public List<Product> getList(String key, Supplier<List<Product>> loader) {
+        return lists.getOrLoad(key, k -> List.copyOf(loader.get()));
+    }
+
+    public CursorPage<Product> getPage(String key, Supplier<CursorPage<Product>> loader) {
+        return pages.getOrLoad(PAGE_PREFIX + key, k -> loader.get());
+    }
+
+    public static String categoryKey(String category) {
+        return CATEGORY_PREFIX + category;
+    }
+
+    /**
+     * List keys a product currently belongs to. Capture this before mutating a
+     * product so both its old and new listings are invalidated.
+     */
+    public Set<String> listKeysFor(Product product) {
+        Set<String> keys = new HashSet<>();
+        if (product == null) {
+            return keys;
+        }
+        if (product.getCategory() != null) {
+            keys.add(categoryKey(product.getCategory()));
+        }
+        if ("SALE".equals(product.getBadge())) {
+            keys.add(SALE_KEY);
+        }
+        return keys;
+    }
+
+    // Admin write: drop the product plus every listing it was or is now part of
+    public void invalidateProduct(Long productId, Set<String> previousKeys, Set<String> currentKeys) {
+        if (productId != null) {
+            products.invalidate(productId);
+        }
+
+        Set<String> keys = new HashSet<>(previousKeys);
+        keys.addAll(currentKeys);
+        keys.add(ALL_KEY);
+        keys.add(ADMIN_KEY);
+        lists.invalidateIf(keys::contains);
+        pages.invalidateAll();
+    }
+
+    // Stock or rating change: listings keep their TTL, the detail view is refreshed now
+    public void invalidateDetail(Long productId) {
+        if (productId != null) {
+            products.invalidate(productId);
+        }
+    }
+
+    // After commit so a concurrent read cannot re-cache the pre-order stock
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        event.getUnitsByProduct().keySet().forEach(this::invalidateDetail);
+    }
+
+    // After commit so a concurrent read cannot re-cache the pre-cancellation stock
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.entered(OrderStatus.CANCELLED)) {
+            event.getUnitsByProduct().keySet().forEach(this::invalidateDetail);
+        }
+    }
+
+    public List<CacheStats> stats() {
+        return List.of(products.stats(), lists.stats(), pages.stats());
+    }
+}
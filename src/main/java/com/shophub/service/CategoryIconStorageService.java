@@ -1,28 +1,27 @@
 package com.shophub.service;
 
 import com.shophub.exception.BadRequestException;
+import com.shophub.model.Category;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.UUID;
-
+/**
+ * Category icons live in the shared {@link BlobStore}. Each saved category owns one reference
+ * to its current icon: saveIcon only stores the file, attachIcon/releaseIcon (idempotent)
+ * move the reference once the category row is saved.
+ */
 @Service
 public class CategoryIconStorageService {
 
-    private static final String UPLOAD_DIR = "uploads/categories/";
+    private final BlobStore blobStore;
+
+    public CategoryIconStorageService(BlobStore blobStore) {
+        this.blobStore = blobStore;
+    }
 
     public String saveIcon(MultipartFile file) {
         try {
-            Path uploadPath = Paths.get(UPLOAD_DIR);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-
             String originalFilename = StringUtils.cleanPath(file.getOriginalFilename());
             int dotIndex = originalFilename.lastIndexOf(".");
             if (dotIndex == -1) {
@@ -30,16 +29,24 @@ public class CategoryIconStorageService {
             }
 
             String fileExtension = originalFilename.substring(dotIndex);
-            String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
-
-            Path filePath = uploadPath.resolve(uniqueFilename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-            return "/" + UPLOAD_DIR + uniqueFilename;
+            return BlobStore.url(blobStore.store(file.getInputStream(), fileExtension));
         } catch (BadRequestException e) {
             throw e;
         } catch (Exception e) {
             throw new BadRequestException("Failed to save category icon");
         }
     }
+
+    // Icon URLs that are not stored blobs (external links, legacy files) are left alone
+    public void attachIcon(Category category) {
+        blobStore.acquire(owner(category), category.getIcon());
+    }
+
+    public void releaseIcon(Category category, String iconUrl) {
+        blobStore.release(owner(category), iconUrl);
+    }
+
+    private static String owner(Category category) {
+        return "category:" + category.getId();
+    }
 }
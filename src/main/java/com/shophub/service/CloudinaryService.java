@@ -2,14 +2,24 @@ package com.shophub.service;
 
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
+import com.shophub.dto.RemoteAsset;
+import com.shophub.dto.StoredImage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
 import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Service
-public class CloudinaryService {
+@ConditionalOnProperty(name = "image.storage.provider", havingValue = "cloudinary", matchIfMissing = true)
+public class CloudinaryService implements ImageStorageProvider {
 
     private final Cloudinary cloudinary;
 
@@ -17,22 +27,95 @@ public class CloudinaryService {
         this.cloudinary = cloudinary;
     }
 
-    // ✅ Upload image
-    public Map uploadFile(MultipartFile file, String folder) throws IOException {
-        return cloudinary.uploader().upload(
-                file.getBytes(),
+    // ✅ Upload image (the SDK streams the file into the multipart body; no byte[] copy on the heap)
+    @Override
+    public StoredImage upload(File file, String folder) throws IOException {
+        Map result = cloudinary.uploader().upload(
+                file,
                 ObjectUtils.asMap(
                         "folder", folder,
                         "resource_type", "auto"
                 )
         );
+        return new StoredImage(result.get("secure_url").toString(), result.get("public_id").toString());
     }
 
     // ✅ Delete image using public_id
-    public void deleteFile(String publicId) throws IOException {
+    @Override
+    public void delete(String publicId) throws IOException {
         cloudinary.uploader().destroy(
                 publicId,
                 ObjectUtils.emptyMap()
         );
     }
+
+    // Admin API bulk delete: up to 100 public ids per call
+    @Override
+    public Set<String> deleteBatch(List<String> publicIds) throws IOException {
+        if (publicIds.isEmpty()) {
+            return Set.of();
+        }
+
+        Map response;
+        try {
+            response = cloudinary.api().deleteResources(publicIds, ObjectUtils.emptyMap());
+        } catch (Exception e) {
+            throw new IOException("Failed to delete Cloudinary assets", e);
+        }
+
+        // "deleted" maps each id to "deleted" or "not_found"; either way it is gone
+        Set<String> gone = new HashSet<>();
+        Object deleted = response.get("deleted");
+        if (deleted instanceof Map<?, ?> results) {
+            results.forEach((publicId, outcome) -> {
+                if ("deleted".equals(outcome) || "not_found".equals(outcome)) {
+                    gone.add(publicId.toString());
+                }
+            });
+        }
+        return gone;
+    }
+
+    @Override
+    public int maxDeleteBatchSize() {
+        return 100;
+    }
+
+    @Override
+    public List<RemoteAsset> listAssets(String folder) throws IOException {
+        List<RemoteAsset> assets = new ArrayList<>();
+        String nextCursor = null;
+        do {
+            Map<String, Object> options = new HashMap<>(ObjectUtils.asMap(
+                    "type", "upload",
+                    "prefix", folder + "/",
+                    "max_results", 500
+            ));
+            if (nextCursor != null) {
+                options.put("next_cursor", nextCursor);
+            }
+
+            Map page;
+            try {
+                page = cloudinary.api().resources(options);
+            } catch (Exception e) {
+                throw new IOException("Failed to list Cloudinary assets", e);
+            }
+
+            Object resources = page.get("resources");
+            if (resources instanceof List<?> rows) {
+                for (Object row : rows) {
+                    Map resource = (Map) row;
+                    Object createdAt = resource.get("created_at");
+                    assets.add(new RemoteAsset(
+                            String.valueOf(resource.get("public_id")),
+                            String.valueOf(resource.get("secure_url")),
+                            createdAt == null ? Instant.EPOCH : Instant.parse(createdAt.toString())
+                    ));
+                }
+            }
+            nextCursor = (String) page.get("next_cursor");
+        } while (nextCursor != null);
+        return assets;
+    }
 }
@@ -0,0 +1,263 @@
+package com.shophub.service;
+
+import com.shophub.dto.OutgoingEmail;
+import com.shophub.exception.MailDeliveryException;
+import com.shophub.model.EmailOutboxMessage;
+import com.shophub.model.EmailOutboxStatus;
+import com.shophub.repository.EmailOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drains the email outbox. A scheduled poll groups due rows by template, claims
+ * each batch with one UPDATE that skips rows locked by other instances and hands
+ * it to a small fixed pool, never claiming more batches than the pool has free
+ * slots for. A batch goes out in one provider request when the transport supports it.
+ * <p>
+ * Templates listed in mail.outbox.batch.deferrable-templates are held back until
+ * either a full batch has accumulated or the oldest message has waited the batch
+ * window, so bursts (e.g. admin new-order alerts) collapse into few requests.
+ * <p>
+ * A batch rejected with a 4xx is split until the offending messages are isolated, so
+ * one bad address does not fail its neighbours.
+ * Failures are retried with exponential backoff and jitter; after max-attempts the
+ * row goes DEAD. A row left SENDING by a crash becomes due again once its lease expires.
+ */
+@Component
+public class EmailOutboxWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxWorker.class);
+
+    private final EmailOutboxRepository outboxRepository;
+    private final MailTransport mailTransport;
+    private final ExecutorService executor;
+    private final Semaphore slots;
+
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long leaseMillis;
+    private final int batchSize;
+    private final long batchWindowMillis;
+    private final Set<String> deferrableTemplates;
+
+    public EmailOutboxWorker(EmailOutboxRepository outboxRepository,
+                             MailTransport mailTransport,
+                             @Value("${mail.outbox.workers:2}") int workers,
+                             @Value("${mail.outbox.max-attempts:8}") int maxAttempts,
+                             @Value("${mail.outbox.base-backoff-ms:5000}") long baseBackoffMillis,
+                             @Value("${mail.outbox.max-backoff-ms:3600000}") long maxBackoffMillis,
+                             @Value("${mail.outbox.lease-ms:120000}") long leaseMillis,
+                             @Value("${mail.outbox.batch.size:50}") int batchSize,
+                             @Value("${mail.outbox.batch.window-ms:10000}") long batchWindowMillis,
+                             @Value("${mail.outbox.batch.deferrable-templates:" + EmailService.TEMPLATE_ADMIN_NEW_ORDER + "}")
+                             Set<String> deferrableTemplates) {
+        this.outboxRepository = outboxRepository;
+        this.mailTransport = mailTransport;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.leaseMillis = leaseMillis;
+        this.batchSize = Math.max(1, Math.min(batchSize, mailTransport.maxBatchSize()));
+        this.batchWindowMillis = batchWindowMillis;
+        this.deferrableTemplates = Set.copyOf(deferrableTemplates);
+
+        // Queue depth is bounded by the semaphore: at most 2 * workers batches are claimed at once
+        AtomicInteger threadIds = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "email-outbox-" + threadIds.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+        );
+        this.slots = new Semaphore(workers * 2);
+    }
+
+    @Scheduled(
+            initialDelayString = "${mail.outbox.poll-interval-ms:2000}",
+            fixedDelayString = "${mail.outbox.poll-interval-ms:2000}"
+    )
+    public void poll() {
+        int free = slots.availablePermits();
+        if (free == 0) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime windowStart = now.minus(Duration.ofMillis(batchWindowMillis));
+        LocalDateTime leaseUntil = now.plus(Duration.ofMillis(leaseMillis));
+
+        Map<String, List<Object[]>> byTemplate = new LinkedHashMap<>();
+        for (Object[] row : outboxRepository.findDue(now, PageRequest.of(0, free * batchSize))) {
+            byTemplate.computeIfAbsent((String) row[1], t -> new ArrayList<>()).add(row);
+        }
+
+        for (Map.Entry<String, List<Object[]>> group : byTemplate.entrySet()) {
+            List<Object[]> rows = group.getValue();
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                List<Object[]> chunk = rows.subList(from, Math.min(from + batchSize, rows.size()));
+
+                if (chunk.size() < batchSize
+                        && deferrableTemplates.contains(group.getKey())
+                        && oldest(chunk).isAfter(windowStart)) {
+                    continue;
+                }
+
+                if (!slots.tryAcquire()) {
+                    return;
+                }
+
+                List<Long> ids = new ArrayList<>(chunk.size());
+                for (Object[] row : chunk) {
+                    ids.add((Long) row[0]);
+                }
+                List<Long> claimed = outboxRepository.claim(ids, now, leaseUntil);
+                if (claimed.isEmpty()) {
+                    slots.release();
+                    continue;
+                }
+
+                try {
+                    executor.execute(() -> {
+                        try {
+                            deliver(claimed);
+                        } finally {
+                            slots.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    // Executor shut down; the lease will expire and another poll picks the rows up
+                    slots.release();
+                    return;
+                }
+            }
+        }
+    }
+
+    public Map<EmailOutboxStatus, Long> countsByStatus() {
+        Map<EmailOutboxStatus, Long> counts = new EnumMap<>(EmailOutboxStatus.class);
+        for (EmailOutboxStatus status : EmailOutboxStatus.values()) {
+            counts.put(status, 0L);
+        }
+        for (Object[] row : outboxRepository.countByStatus()) {
+            counts.put((EmailOutboxStatus) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
+    private static LocalDateTime oldest(List<Object[]> rows) {
+        LocalDateTime oldest = (LocalDateTime) rows.get(0)[2];
+        for (Object[] row : rows) {
+            if (((LocalDateTime) row[2]).isBefore(oldest)) {
+                oldest = (LocalDateTime) row[2];
+            }
+        }
+        return oldest;
+    }
+
+    private void deliver(List<Long> ids) {
+        List<EmailOutboxMessage> messages = outboxRepository.findAllById(ids);
+        if (!messages.isEmpty()) {
+            deliverBatch(messages);
+        }
+    }
+
+    // A batch the provider rejects outright (4xx) is split in half and each half retried, so one
+    // bad recipient costs O(log n) extra requests and only that message is marked failed.
+    // Other failures (provider down, auth, 429, 5xx) say nothing about individual messages: all are retried.
+    private void deliverBatch(List<EmailOutboxMessage> messages) {
+        List<OutgoingEmail> batch = new ArrayList<>(messages.size());
+        for (EmailOutboxMessage message : messages) {
+            batch.add(new OutgoingEmail(message.getRecipient(), message.getSubject(), message.getHtmlContent()));
+        }
+
+        try {
+            mailTransport.sendBatch(batch);
+        } catch (Exception e) {
+            if (messages.size() > 1 && isRejection(e)) {
+                int half = messages.size() / 2;
+                deliverBatch(messages.subList(0, half));
+                deliverBatch(messages.subList(half, messages.size()));
+                return;
+            }
+            String error = describe(e);
+            for (EmailOutboxMessage message : messages) {
+                markFailed(message, error);
+            }
+            return;
+        }
+
+        List<Long> sentIds = new ArrayList<>(messages.size());
+        for (EmailOutboxMessage message : messages) {
+            sentIds.add(message.getId());
+        }
+        outboxRepository.markSent(sentIds, LocalDateTime.now());
+    }
+
+    private static boolean isRejection(Exception e) {
+        if (!(e instanceof MailDeliveryException delivery)) {
+            return false;
+        }
+        int status = delivery.getStatus();
+        // Auth, timeout and rate-limit responses would reject every half just the same
+        return status >= 400 && status < 500 && status != 401 && status != 403 && status != 408 && status != 429;
+    }
+
+    private void markFailed(EmailOutboxMessage message, String error) {
+        if (message.getAttempts() >= maxAttempts) {
+            outboxRepository.markFailed(message.getId(), EmailOutboxStatus.DEAD, LocalDateTime.now(), error);
+            log.error("Email {} to {} dead-lettered after {} attempts: {}",
+                    message.getId(), message.getRecipient(), message.getAttempts(), error);
+        } else {
+            LocalDateTime retryAt = LocalDateTime.now().plus(Duration.ofMillis(backoffMillis(message.getAttempts())));
+            outboxRepository.markFailed(message.getId(), EmailOutboxStatus.PENDING, retryAt, error);
+            log.warn("Email {} attempt {} failed, retrying at {}: {}", message.getId(), message.getAttempts(), retryAt, error);
+        }
+    }
+
+    // base * 2^(attempt-1), capped, with up to 20% jitter so a provider outage does not end in a thundering herd
+    private long backoffMillis(int attempt) {
+        long backoff = baseBackoffMillis << Math.min(Math.max(attempt - 1, 0), 20);
+        backoff = Math.min(backoff, maxBackoffMillis);
+        return backoff + ThreadLocalRandom.current().nextLong(backoff / 5 + 1);
+    }
+
+    private static String describe(Exception e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        String text = root.getClass().getSimpleName() + ": " + root.getMessage();
+        return text.length() > 1000 ? text.substring(0, 1000) : text;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -1,67 +1,51 @@
 package com.shophub.service;
 
+import com.shophub.model.EmailOutboxMessage;
 import com.shophub.model.Order;
 import com.shophub.model.OrderItem;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
+import com.shophub.repository.EmailOutboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 @Service
 public class EmailService {
 
-    @Value("${BREVO_API_KEY}")
-    private String apiKey;
-
-    @Value("${MAIL_FROM}")
-    private String mailFrom;
-
-    @Value("${MAIL_FROM_NAME}")
-    private String mailFromName;
-
-    private static final String BREVO_URL = "https://api.brevo.com/v3/smtp/email";
-
+    public static final String TEMPLATE_GENERIC = "generic";
+    public static final String TEMPLATE_WELCOME = "welcome";
+    public static final String TEMPLATE_PASSWORD_RESET = "password-reset";
+    public static final String TEMPLATE_ORDER_INVOICE = "order-invoice";
+    public static final String TEMPLATE_ORDER_CONFIRMATION = "order-confirmation";
+    public static final String TEMPLATE_ADMIN_NEW_ORDER = "admin-new-order";
+    public static final String TEMPLATE_ORDER_STATUS = "order-status";
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    /**
+     * Queues the email in the outbox. Joins the caller's transaction when there is one,
+     * so the email is only sent if the surrounding business change commits.
+     * Delivery happens asynchronously in EmailOutboxWorker through the MailTransport.
+     */
     public void sendEmail(String to, String subject, String htmlContent) {
-        try {
-            RestTemplate restTemplate = new RestTemplate();
-
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("sender", Map.of(
-                    "email", mailFrom,
-                    "name", mailFromName
-            ));
-            payload.put("to", new Object[]{
-                    Map.of("email", to)
-            });
-            payload.put("subject", subject);
-            payload.put("htmlContent", htmlContent);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("api-key", apiKey);
-
-            HttpEntity<String> request = new HttpEntity<>(
-                    new ObjectMapper().writeValueAsString(payload),
-                    headers
-            );
-
-            ResponseEntity<String> response =
-                    restTemplate.postForEntity(BREVO_URL, request, String.class);
-
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                throw new RuntimeException("Brevo email failed: " + response.getBody());
-            }
+        sendEmail(TEMPLATE_GENERIC, to, subject, htmlContent);
+    }
 
-        } catch (Exception e) {
-            throw new RuntimeException("Email sending failed", e);
+    public void sendEmail(String template, String to, String subject, String htmlContent) {
+        if (to == null || to.isBlank()) {
+            throw new IllegalArgumentException("recipient must not be blank");
         }
+
+        EmailOutboxMessage message = new EmailOutboxMessage();
+        message.setTemplate(template);
+        message.setRecipient(to);
+        message.setSubject(subject);
+        message.setHtmlContent(htmlContent);
+        outboxRepository.save(message);
     }
 
     public void sendWelcomeEmail(String toEmail, String firstName) {
@@ -83,7 +67,7 @@ public class EmailService {
             </div>
             """.formatted(firstName);
 
-        sendEmail(toEmail, subject, htmlContent);
+        sendEmail(TEMPLATE_WELCOME, toEmail, subject, htmlContent);
     }
 
     public void sendOrderInvoiceEmail(
@@ -188,7 +172,7 @@ public class EmailService {
                 safeAddress
         );
 
-        sendEmail(to, subject, htmlContent);
+        sendEmail(TEMPLATE_ORDER_INVOICE, to, subject, htmlContent);
     }
 
     public void sendAdminNewOrderNotification(
@@ -229,7 +213,7 @@ public class EmailService {
                 safeAddress
         );
 
-        sendEmail("support@kiaralifestyle.com", subject, htmlContent);
+        sendEmail(TEMPLATE_ADMIN_NEW_ORDER, "support@kiaralifestyle.com", subject, htmlContent);
     }
 
     public void sendOrderInvoiceEmail(Order order, String customerName) {
@@ -335,7 +319,7 @@ public class EmailService {
                 safeAddress
         );
 
-        sendEmail(order.getEmail(), subject, htmlContent);
+        sendEmail(TEMPLATE_ORDER_INVOICE, order.getEmail(), subject, htmlContent);
     }
 
     public void sendAdminNewOrderNotification(Order order, String customerName) {
@@ -468,7 +452,44 @@ public class EmailService {
                 money(grandTotal)
         );
 
-        sendEmail(order.getEmail(), subject, htmlContent);
+        sendEmail(TEMPLATE_ORDER_CONFIRMATION, order.getEmail(), subject, htmlContent);
+    }
+
+    // Queued in the status-change transaction; customers hear about shipping, delivery and cancellation
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        String message = switch (event.getTo()) {
+            case SHIPPED -> "Your order is on its way 🚚";
+            case DELIVERED -> "Your order has been delivered. We hope you enjoy it!";
+            case CANCELLED -> "Your order has been cancelled. If you did not request this, please contact us.";
+            default -> null;
+        };
+        if (message == null || event.getEmail() == null || event.getEmail().isBlank()) {
+            return;
+        }
+
+        String subject = "Order #" + event.getOrderId() + " " + event.getTo().value();
+        String htmlContent = """
+            <div style=\"font-family:Arial,sans-serif;\">
+                <h2>Hi %s 👋</h2>
+                <p>%s</p>
+                <p><strong>Order ID:</strong> #%d</p>
+                <p><strong>Status:</strong> %s</p>
+
+                <hr>
+                <p style=\"font-size:12px;color:gray;\">
+                    Kiara Lifestyle<br>
+                    support@kiaralifestyle.com
+                </p>
+            </div>
+            """.formatted(
+                esc(blankAsDash(event.getCustomerName())),
+                message,
+                event.getOrderId(),
+                esc(event.getTo().value())
+        );
+
+        sendEmail(TEMPLATE_ORDER_STATUS, event.getEmail(), subject, htmlContent);
     }
 
     private static String money(double amount) {
@@ -546,6 +567,6 @@ public class EmailService {
             </div>
             """.formatted(safeCustomerName, orderId, safeTotalAmount);
 
-        sendEmail(to, subject, htmlContent);
+        sendEmail(TEMPLATE_ORDER_CONFIRMATION, to, subject, htmlContent);
     }
 }
@@ -0,0 +1,173 @@
+package com.shophub.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shophub.cache.BoundedTtlCache;
+import com.shophub.exception.BadRequestException;
+import com.shophub.exception.ConflictException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs a create action at most once per Idempotency-Key. The id of the created
+ * resource is remembered for the TTL, so a retry gets the original back instead of
+ * a second execution; retries arriving while the first is still running wait for it.
+ * Keys are scoped per caller and bound to a fingerprint of the request body, so a key
+ * reused with a different body is rejected rather than answered with another order.
+ * <p>
+ * Call outside the action's transaction: the id is only recorded once it has committed.
+ * Failed executions are not remembered, so the client can retry them with the same key.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 128;
+
+    private final ObjectMapper objectMapper;
+    private final BoundedTtlCache<String, Completed> completed;
+    private final ConcurrentHashMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final long waitMillis;
+
+    @Autowired
+    public IdempotencyService(ObjectMapper objectMapper,
+                              @Value("${idempotency.max-keys:20000}") int maxKeys,
+                              @Value("${idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${idempotency.wait-ms:30000}") long waitMillis) {
+        this(objectMapper, maxKeys, Duration.ofHours(ttlHours), waitMillis);
+    }
+
+    IdempotencyService(ObjectMapper objectMapper, int maxKeys, Duration ttl, long waitMillis) {
+        this.objectMapper = objectMapper;
+        this.completed = new BoundedTtlCache<>("idempotency.keys", maxKeys, ttl.toMillis());
+        this.waitMillis = waitMillis;
+    }
+
+    /**
+     * Scope for callers without an account. Guests are told apart by the email they check out
+     * with, so two guests who happen to send the same key never get each other's order.
+     */
+    public static String guestScope(String endpoint, String email) {
+        String client = email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+        return endpoint + ":" + client;
+    }
+
+    /**
+     * @param scope  caller identity (account email, or {@link #guestScope}), so keys from different callers never collide
+     * @param key    the Idempotency-Key header; when null the action simply runs
+     * @param replay loads the result for a remembered id
+     */
+    public <T> T execute(String scope, String key, Object request,
+                         Supplier<T> action, Function<T, Long> idOf, Function<Long, T> replay) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+
+        String scopedKey = scope + "|" + key;
+        String fingerprint = fingerprint(request);
+
+        Completed done = completed.get(scopedKey);
+        if (done != null) {
+            requireSameRequest(done.fingerprint, fingerprint);
+            return replay.apply(done.resultId);
+        }
+
+        InFlight mine = new InFlight(fingerprint);
+        InFlight running = inFlight.putIfAbsent(scopedKey, mine);
+        if (running != null) {
+            requireSameRequest(running.fingerprint, fingerprint);
+            return replay.apply(await(running));
+        }
+
+        try {
+            // The previous holder may have finished between the lookup above and putIfAbsent
+            done = completed.get(scopedKey);
+            if (done != null) {
+                requireSameRequest(done.fingerprint, fingerprint);
+                mine.result.complete(done.resultId);
+                return replay.apply(done.resultId);
+            }
+
+            T result = action.get();
+            Long resultId = idOf.apply(result);
+            completed.put(scopedKey, new Completed(fingerprint, resultId));
+            mine.result.complete(resultId);
+            return result;
+        } catch (RuntimeException e) {
+            mine.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(scopedKey, mine);
+        }
+    }
+
+    private Long await(InFlight running) {
+        try {
+            return running.result.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // Coalesced retries see the same outcome as the execution they joined
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ConflictException("A request with this Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("A request with this Idempotency-Key is still being processed");
+        }
+    }
+
+    private static void requireSameRequest(String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new ConflictException("Idempotency-Key was already used for a different request");
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(request);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Invalid request body");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class InFlight {
+        private final String fingerprint;
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+
+        private InFlight(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private static final class Completed {
+        private final String fingerprint;
+        private final Long resultId;
+
+        private Completed(String fingerprint, Long resultId) {
+            this.fingerprint = fingerprint;
+            this.resultId = resultId;
+        }
+    }
+}
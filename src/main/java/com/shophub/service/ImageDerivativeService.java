@@ -0,0 +1,368 @@
+package com.shophub.service;
+
+import com.shophub.cache.BoundedTtlCache;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Resized variants of locally stored images, written next to the original as
+ * {@code <name>.w<width>.jpg} (or {@code .png} when the image has transparency).
+ * Generated on a small bounded pool right after upload, and on first request
+ * for originals that predate this (or whose background job was dropped).
+ * <p>
+ * Encoding is pure JVM (ImageIO), which has no WebP writer; variants are
+ * progressive-quality JPEG, or PNG to keep alpha.
+ * <p>
+ * Original widths are read from the image header and cached, so a request
+ * for a size the original already fits is answered without the pool.
+ */
+@Service
+public class ImageDerivativeService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageDerivativeService.class);
+
+    // thumbnail (grids), card, detail
+    public static final int[] VARIANT_WIDTHS = {200, 480, 1024};
+
+    private static final Pattern SOURCE_NAME = Pattern.compile("(?i)[^.]+\\.(jpe?g|png|gif|bmp)");
+    private static final float JPEG_QUALITY = 0.82f;
+
+    // Cached width for originals that will never have variants (unreadable, or over the pixel limit)
+    private static final int NO_VARIANTS = 0;
+
+    private final ThreadPoolExecutor executor;
+    private final Map<Path, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger threadIds = new AtomicInteger();
+    private final long maxPixels;
+    private final long waitMillis;
+    private final BoundedTtlCache<String, Integer> sourceWidths;
+
+    public ImageDerivativeService(@Value("${image.derivatives.threads:2}") int threads,
+                                  @Value("${image.derivatives.queue-capacity:100}") int queueCapacity,
+                                  @Value("${image.derivatives.max-pixels:40000000}") long maxPixels,
+                                  @Value("${image.derivatives.wait-ms:5000}") long waitMillis,
+                                  @Value("${image.derivatives.dimension-cache-size:10000}") int dimensionCacheSize) {
+        this.maxPixels = maxPixels;
+        this.waitMillis = waitMillis;
+        this.sourceWidths = new BoundedTtlCache<>("images.source-widths", dimensionCacheSize, TimeUnit.HOURS.toMillis(24));
+        // Resizing is CPU-bound: a few threads, and a full queue drops work rather than piling it up
+        this.executor = new ThreadPoolExecutor(
+                threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "image-derivatives-" + threadIds.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    // Fire-and-forget after an upload; if the pool is saturated the first request generates them instead
+    public void generateAsync(Path original) {
+        if (isSource(original)) {
+            schedule(original);
+        }
+    }
+
+    /**
+     * The file to serve for a request of {@code requestedWidth} pixels: the smallest variant
+     * at least that wide, or the original when it is not larger than that or a variant cannot be made.
+     */
+    public Path resolve(Path original, int requestedWidth) {
+        if (!isSource(original) || requestedWidth <= 0) {
+            return original;
+        }
+
+        Integer width = bucket(requestedWidth);
+        if (width == null) {
+            return original;
+        }
+
+        Path variant = existingVariant(original, width);
+        if (variant != null) {
+            return variant;
+        }
+
+        // Nothing is written for widths the original already fits, so do not wait for a job that never writes it
+        Integer sourceWidth = sourceWidth(original);
+        if (sourceWidth == null || width >= sourceWidth) {
+            return original;
+        }
+
+        CompletableFuture<Void> job = schedule(original);
+        if (job == null) {
+            return original;
+        }
+        try {
+            job.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            return original;
+        }
+        variant = existingVariant(original, width);
+        return variant != null ? variant : original;
+    }
+
+    /**
+     * Whether {@link #resolve} answers the original for this width no matter how often it is asked:
+     * the original is no wider than the variant, there is no variant that size, or none can be made.
+     * False for fallbacks that are only temporary (a full queue, a slow or failed job).
+     */
+    public boolean isOriginalFinal(Path original, int requestedWidth) {
+        if (!isSource(original) || requestedWidth <= 0) {
+            return true;
+        }
+        Integer width = bucket(requestedWidth);
+        if (width == null) {
+            return true;
+        }
+        Integer sourceWidth = sourceWidth(original);
+        return sourceWidth != null && width >= sourceWidth;
+    }
+
+    public void deleteVariants(Path original) {
+        for (int width : VARIANT_WIDTHS) {
+            for (String extension : new String[]{"jpg", "png"}) {
+                try {
+                    Files.deleteIfExists(variantPath(original, width, extension));
+                } catch (IOException e) {
+                    log.warn("Could not delete image variant of {}", original, e);
+                }
+            }
+        }
+    }
+
+    private CompletableFuture<Void> schedule(Path original) {
+        return inFlight.computeIfAbsent(original, path -> {
+            CompletableFuture<Void> job = new CompletableFuture<>();
+            try {
+                executor.execute(() -> {
+                    try {
+                        generate(path);
+                        job.complete(null);
+                    } catch (Exception e) {
+                        log.warn("Could not generate variants for {}", path, e);
+                        job.completeExceptionally(e);
+                    } finally {
+                        inFlight.remove(path, job);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                return null;
+            }
+            return job;
+        });
+    }
+
+    private void generate(Path original) throws IOException {
+        if (!Files.isRegularFile(original)) {
+            return;
+        }
+
+        BufferedImage source = readBounded(original);
+        if (source == null) {
+            return;
+        }
+
+        boolean alpha = source.getColorModel().hasAlpha();
+        String extension = alpha ? "png" : "jpg";
+        BufferedImage current = source;
+        // Largest first, each step scaling down from the previous one
+        for (int i = VARIANT_WIDTHS.length - 1; i >= 0; i--) {
+            int width = VARIANT_WIDTHS[i];
+            if (width >= source.getWidth()) {
+                continue;
+            }
+            Path target = variantPath(original, width, extension);
+            current = scale(current, width, alpha);
+            if (!Files.exists(target)) {
+                write(current, target, extension);
+            }
+        }
+    }
+
+    // Smallest variant width covering the request, or null when it is wider than every variant
+    private static Integer bucket(int requestedWidth) {
+        for (int candidate : VARIANT_WIDTHS) {
+            if (candidate >= requestedWidth) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    // Header width of the original (NO_VARIANTS when it will never get any), or null when it cannot be read now.
+    // Keyed by size and mtime as well, so a replaced file is measured again.
+    private Integer sourceWidth(Path original) {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(original, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+        String key = original + "|" + attributes.size() + "|" + attributes.lastModifiedTime().toMillis();
+        return sourceWidths.getOrLoad(key, k -> readSourceWidth(original));
+    }
+
+    private Integer readSourceWidth(Path original) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            if (input == null) {
+                return NO_VARIANTS;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return NO_VARIANTS;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                long pixels = (long) width * reader.getHeight(0);
+                return pixels > maxPixels ? NO_VARIANTS : width;
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            log.debug("Could not read the header of {}", original, e);
+            return null;
+        }
+    }
+
+    // Checks the header dimensions before decoding, so a tiny file cannot expand into a huge bitmap
+    private BufferedImage readBounded(Path original) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    log.warn("Skipping variants for {}: {} pixels exceeds limit", original, pixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Halving steps with bilinear filtering approximate a proper downsample without a native library
+    private static BufferedImage scale(BufferedImage source, int targetWidth, boolean alpha) {
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int targetHeight = Math.max(1, Math.round((float) source.getHeight() * targetWidth / source.getWidth()));
+
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = width == targetWidth ? targetHeight : Math.max(targetHeight, height / 2);
+
+            BufferedImage step = new BufferedImage(width, height,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = step.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = step;
+        } while (width > targetWidth);
+
+        return current;
+    }
+
+    // Written to a temp name and moved, so a concurrent request never serves a half-written file
+    private static void write(BufferedImage image, Path target, String extension) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), ".variant-", "." + extension);
+        try {
+            if ("jpg".equals(extension)) {
+                ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+                try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+                    ImageWriteParam param = writer.getDefaultWriteParam();
+                    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                    param.setCompressionQuality(JPEG_QUALITY);
+                    param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+                    writer.setOutput(output);
+                    writer.write(null, new IIOImage(image, null, null), param);
+                } finally {
+                    writer.dispose();
+                }
+            } else {
+                ImageIO.write(image, "png", temp.toFile());
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static Path existingVariant(Path original, int width) {
+        for (String extension : new String[]{"jpg", "png"}) {
+            Path variant = variantPath(original, width, extension);
+            if (Files.isRegularFile(variant)) {
+                return variant;
+            }
+        }
+        return null;
+    }
+
+    private static Path variantPath(Path original, int width, String extension) {
+        String name = original.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return original.resolveSibling(base + ".w" + width + "." + extension);
+    }
+
+    // Originals only (a single dot), never a variant or an unreadable format such as WebP
+    private static boolean isSource(Path path) {
+        return path != null && SOURCE_NAME.matcher(path.getFileName().toString().toLowerCase(Locale.ROOT)).matches();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,177 @@
+package com.shophub.service;
+
+import com.shophub.dto.StoredImage;
+import com.shophub.exception.BadRequestException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Uploads a request's images to the {@link ImageStorageProvider} concurrently.
+ * Each multipart file is moved to a temp file and streamed from disk, so image bytes
+ * never sit on the heap. All-or-nothing: if any upload fails, the ones that succeeded
+ * are deleted again before the request fails.
+ */
+@Service
+public class ImageIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageIngestionService.class);
+
+    private final ImageStorageProvider storage;
+    private final AssetGarbageCollector assetGarbageCollector;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final AtomicInteger threadIds = new AtomicInteger();
+
+    public ImageIngestionService(ImageStorageProvider storage,
+                                 AssetGarbageCollector assetGarbageCollector,
+                                 @Value("${image.upload.threads:4}") int threads,
+                                 @Value("${image.upload.queue-capacity:32}") int queueCapacity,
+                                 @Value("${image.upload.timeout-ms:60000}") long timeoutMillis) {
+        this.storage = storage;
+        this.assetGarbageCollector = assetGarbageCollector;
+        this.timeoutMillis = timeoutMillis;
+        // Bounded queue; when full the request thread uploads itself instead of queueing without limit
+        this.executor = new ThreadPoolExecutor(
+                threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "image-upload-" + threadIds.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @return one StoredImage per file, in the same order
+     * @throws BadRequestException if any file could not be stored; nothing stays uploaded
+     */
+    public List<StoredImage> uploadAll(List<MultipartFile> files, String folder) {
+        if (files.isEmpty()) {
+            return List.of();
+        }
+
+        List<Path> spooled = new ArrayList<>(files.size());
+        try {
+            // Multipart parts are cleaned up when the request ends, so take them over on this thread
+            for (MultipartFile file : files) {
+                Path temp = Files.createTempFile("image-upload-", extensionOf(file));
+                spooled.add(temp);
+                file.transferTo(temp.toFile());
+            }
+
+            List<Future<StoredImage>> uploads = new ArrayList<>(spooled.size());
+            for (Path temp : spooled) {
+                uploads.add(executor.submit(() -> storage.upload(temp.toFile(), folder)));
+            }
+            return collect(uploads);
+        } catch (IOException e) {
+            throw new BadRequestException("Failed to read uploaded image");
+        } finally {
+            for (Path temp : spooled) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    log.warn("Could not delete temp upload {}", temp, e);
+                }
+            }
+        }
+    }
+
+    // Rolls back uploads whose owning change did not go through; whatever fails is left to the garbage collector
+    public void deleteQuietly(List<StoredImage> images) {
+        List<String> publicIds = new ArrayList<>(images.size());
+        for (StoredImage image : images) {
+            if (image != null && image.getPublicId() != null) {
+                publicIds.add(image.getPublicId());
+            }
+        }
+        if (publicIds.isEmpty()) {
+            return;
+        }
+
+        Set<String> gone;
+        try {
+            gone = storage.deleteBatch(publicIds);
+        } catch (IOException e) {
+            log.warn("Rollback delete of {} uploaded image(s) failed", publicIds.size(), e);
+            gone = Set.of();
+        }
+        if (gone.size() < publicIds.size()) {
+            List<String> leftover = new ArrayList<>(publicIds);
+            leftover.removeAll(gone);
+            log.warn("Could not roll back {} uploaded image(s); queued for deletion", leftover.size());
+            try {
+                assetGarbageCollector.enqueue(leftover);
+            } catch (RuntimeException e) {
+                log.warn("Could not queue rolled-back images {}; reconcile will find them", leftover, e);
+            }
+        }
+    }
+
+    // Waits for every upload (they run in parallel, so this costs the slowest one) before deciding
+    private List<StoredImage> collect(List<Future<StoredImage>> uploads) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<StoredImage> stored = new ArrayList<>(uploads.size());
+        Throwable failure = null;
+
+        for (Future<StoredImage> upload : uploads) {
+            try {
+                stored.add(upload.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (ExecutionException e) {
+                failure = failure == null ? e.getCause() : failure;
+            } catch (TimeoutException e) {
+                upload.cancel(true);
+                failure = failure == null ? e : failure;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                upload.cancel(true);
+                failure = failure == null ? e : failure;
+            }
+        }
+
+        if (failure != null) {
+            log.error("Image upload failed; rolling back {} uploaded image(s)", stored.size(), failure);
+            deleteQuietly(stored);
+            throw new BadRequestException("Failed to upload product images");
+        }
+        return stored;
+    }
+
+    private static String extensionOf(MultipartFile file) {
+        String name = file.getOriginalFilename();
+        int dot = name == null ? -1 : name.lastIndexOf('.');
+        if (dot < 0) {
+            return "";
+        }
+        String extension = name.substring(dot).toLowerCase(Locale.ROOT);
+        return extension.matches("\\.[a-z0-9]{1,5}") ? extension : "";
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,53 @@
+package com.shophub.service;
+
+import com.shophub.dto.RemoteAsset;
+import com.shophub.dto.StoredImage;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Where product images are stored. Selected with image.storage.provider:
+ * "cloudinary" (default) or "local" for development without Cloudinary credentials.
+ * Implementations are called from ImageIngestionService's worker threads and must be thread-safe.
+ */
+public interface ImageStorageProvider {
+
+    // Streams the file from disk; the caller owns (and deletes) the file
+    StoredImage upload(File file, String folder) throws IOException;
+
+    void delete(String publicId) throws IOException;
+
+    /**
+     * Deletes up to {@link #maxDeleteBatchSize()} assets, in one call where the provider supports it.
+     * @return the ids that are gone (deleted or already missing); the rest should be retried
+     * @throws IOException when nothing could be deleted, carrying the provider's failure
+     */
+    default Set<String> deleteBatch(List<String> publicIds) throws IOException {
+        Set<String> gone = new HashSet<>();
+        IOException failure = null;
+        for (String publicId : publicIds) {
+            try {
+                delete(publicId);
+                gone.add(publicId);
+            } catch (IOException e) {
+                // left out of the result, so the caller retries it
+                failure = e;
+            }
+        }
+        if (gone.isEmpty() && failure != null) {
+            throw failure;
+        }
+        return gone;
+    }
+
+    default int maxDeleteBatchSize() {
+        return 100;
+    }
+
+    // Every asset stored under the folder, for finding uploads no product references
+    List<RemoteAsset> listAssets(String folder) throws IOException;
+}
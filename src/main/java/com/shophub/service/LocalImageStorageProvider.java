@@ -0,0 +1,102 @@
+package com.shophub.service;
+
+import com.shophub.dto.RemoteAsset;
+import com.shophub.dto.StoredImage;
+import com.shophub.model.StoredBlob;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Stores images under the local uploads directory (served at /uploads/** by UploadController).
+ * Stand-in for Cloudinary in development and tests: image.storage.provider=local.
+ * <p>
+ * Content goes to the shared {@link BlobStore}. Each upload gets its own public id,
+ * {@code <folder>/<uuid>/<blob name>}, which owns one blob reference until it is deleted, so two
+ * products with the same photo share one file but are still deleted independently, and a
+ * repeated delete of the same id releases nothing more.
+ */
+@Service
+@ConditionalOnProperty(name = "image.storage.provider", havingValue = "local")
+public class LocalImageStorageProvider implements ImageStorageProvider {
+
+    private final Path root;
+    private final ImageDerivativeService derivativeService;
+    private final BlobStore blobStore;
+
+    public LocalImageStorageProvider(@Value("${image.storage.local-root:uploads}") String root,
+                                     ImageDerivativeService derivativeService,
+                                     BlobStore blobStore) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.derivativeService = derivativeService;
+        this.blobStore = blobStore;
+    }
+
+    @Override
+    public StoredImage upload(File file, String folder) throws IOException {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        String extension = dot > 0 ? name.substring(dot).toLowerCase(Locale.ROOT) : "";
+
+        StoredBlob blob = blobStore.store(file.toPath(), extension);
+        String publicId = folder + "/" + UUID.randomUUID() + "/" + BlobStore.name(blob);
+        if (!blobStore.acquire(publicId, BlobStore.name(blob))) {
+            throw new IOException("Stored image disappeared before it could be referenced");
+        }
+        return new StoredImage(BlobStore.url(blob), publicId);
+    }
+
+    @Override
+    public void delete(String publicId) throws IOException {
+        String[] segments = publicId.split("/");
+        if (segments.length == 3 && BlobStore.blobName(segments[2]) != null) {
+            blobStore.release(publicId, segments[2]);
+            return;
+        }
+
+        // Flat <folder>/<uuid>.<ext> files stored before the blob store
+        Path file = resolve(publicId);
+        Files.deleteIfExists(file);
+        derivativeService.deleteVariants(file);
+    }
+
+    @Override
+    public List<RemoteAsset> listAssets(String folder) throws IOException {
+        Path dir = resolve(folder);
+        List<RemoteAsset> assets = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return assets;
+        }
+
+        // Blob references are counted, so only the flat files from before the blob store can be orphans
+        try (Stream<Path> files = Files.list(dir)) {
+            // Variants (name.w480.jpg) belong to their original and are deleted with it
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)
+                    .filter(f -> f.getFileName().toString().indexOf('.') == f.getFileName().toString().lastIndexOf('.'))::iterator) {
+                String publicId = folder + "/" + file.getFileName();
+                assets.add(new RemoteAsset(publicId, "/uploads/" + publicId,
+                        Files.getLastModifiedTime(file).toInstant()));
+            }
+        }
+        return assets;
+    }
+
+    private Path resolve(String publicId) throws IOException {
+        Path path = root.resolve(publicId).normalize();
+        if (!path.startsWith(root)) {
+            throw new IOException("Invalid image id");
+        }
+        return path;
+    }
+}
@@ -0,0 +1,39 @@
+package com.shophub.service;
+
+import com.shophub.dto.MailTransportStats;
+import com.shophub.dto.OutgoingEmail;
+import com.shophub.exception.MailDeliveryException;
+
+import java.util.List;
+
+/**
+ * Sends email synchronously. Implementations must be thread-safe;
+ * the outbox worker calls them from several threads.
+ */
+public interface MailTransport {
+
+    /**
+     * @throws MailDeliveryException when the provider rejects the message or cannot be reached
+     */
+    void send(String to, String subject, String htmlContent);
+
+    /**
+     * Sends several messages, in one provider request where the provider supports it.
+     * All-or-nothing: on failure the caller must treat every message as unsent.
+     *
+     * @throws MailDeliveryException when the provider rejects the batch or cannot be reached
+     */
+    default void sendBatch(List<OutgoingEmail> messages) {
+        for (OutgoingEmail message : messages) {
+            send(message.getTo(), message.getSubject(), message.getHtmlContent());
+        }
+    }
+
+    // Largest batch sendBatch accepts in one call
+    default int maxBatchSize() {
+        return 1;
+    }
+
+    // Request, message and failure counters since startup, for the admin dashboard
+    MailTransportStats stats();
+}
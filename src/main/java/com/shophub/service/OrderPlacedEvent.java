@@ -0,0 +1,19 @@
+package com.shophub.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Published by OrderService inside the checkout transaction. Listeners that touch
+ * shared in-memory state run after commit, so a rolled-back order leaves no trace.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderPlacedEvent {
+
+    private final Long orderId;
+    // productId -> units ordered (stock was reserved for these)
+    private final Map<Long, Integer> unitsByProduct;
+}
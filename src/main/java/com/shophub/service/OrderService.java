@@ -1,28 +1,54 @@
 package com.shophub.service;
 
+import com.shophub.dto.CursorPage;
+import com.shophub.dto.KeysetCursor;
+import com.shophub.dto.OrderFilter;
+import com.shophub.dto.OrderHistoryView;
+import com.shophub.dto.OrderItemRequest;
 import com.shophub.dto.OrderRequest;
 import com.shophub.dto.GuestCheckoutRequest;
+import com.shophub.dto.OrderSummary;
 import com.shophub.exception.BadRequestException;
 import com.shophub.exception.ResourceNotFoundException;
 import com.shophub.model.Order;
 import com.shophub.model.OrderItem;
+import com.shophub.model.OrderStatus;
 import com.shophub.model.Product;
 import com.shophub.model.User;
 import com.shophub.repository.OrderRepository;
 import com.shophub.repository.ProductRepository;
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 
 @Service
 public class OrderService {
 
     private static final Logger log = LoggerFactory.getLogger(OrderService.class);
 
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Upper bound for the legacy unpaginated admin listing
+    private static final int LEGACY_ADMIN_LIMIT = 500;
+
+    private static final String CURSOR_SORT = "ORDERS_NEWEST";
+    private static final String HISTORY_CURSOR_SORT = "ORDER_HISTORY";
+
     @Autowired
     private OrderRepository orderRepository;
 
@@ -32,6 +58,12 @@ public class OrderService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Transactional
     public Order createOrder(OrderRequest request, User user) {
         Order order = new Order();
@@ -59,21 +91,28 @@ public class OrderService {
         order.setDeliveryMethod(request.getDeliveryMethod());
         order.setDeliveryCharge(request.getDeliveryCharge());
         order.setComment(request.getComment());
-        order.setStatus("pending");
+        order.setStatus(OrderStatus.PENDING.value());
 
         // Calculate total and create order items
         List<OrderItem> orderItems = new ArrayList<>();
+        Map<Long, Integer> unitsByProduct = new HashMap<>();
         double total = 0;
 
+        // One IN query for the whole cart instead of a findById per line
+        List<Long> productIds = request.getItems().stream()
+                .map(OrderItemRequest::getProductId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Map<Long, Product> productsById = new HashMap<>();
+        for (Product product : productRepository.findAllById(productIds)) {
+            productsById.put(product.getId(), product);
+        }
+
         for (var itemRequest : request.getItems()) {
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
-
-            // ✅ CHECK STOCK AVAILABILITY BEFORE CREATING ORDER
-            if (product.getStock() < itemRequest.getQuantity()) {
-                throw new BadRequestException("Insufficient stock for product: " + product.getName() +
-                        ". Available: " + product.getStock() +
-                        ", Requested: " + itemRequest.getQuantity());
+            Product product = productsById.get(itemRequest.getProductId());
+            if (product == null) {
+                throw new ResourceNotFoundException("Product not found");
             }
 
             OrderItem orderItem = new OrderItem();
@@ -90,34 +129,27 @@ public class OrderService {
             orderItems.add(orderItem);
             total += product.getPrice() * itemRequest.getQuantity();
 
-            // ✅ RESERVE STOCK IMMEDIATELY WHEN ORDER IS PLACED
-            product.setStock(product.getStock() - itemRequest.getQuantity());
-            product.setInStock(product.getStock() > 0);
-            productRepository.save(product);
+            unitsByProduct.merge(product.getId(), itemRequest.getQuantity(), Integer::sum);
         }
 
+        // ✅ RESERVE STOCK IMMEDIATELY WHEN ORDER IS PLACED (atomic, all-or-nothing for the cart)
+        stockReservationService.reserve(unitsByProduct);
+
         order.setItems(orderItems);
         order.setTotal(total + (request.getDeliveryCharge() != null ? request.getDeliveryCharge() : 0));
 
         Order savedOrder = orderRepository.save(order);
+        // Cached stock and suggestion ranking are updated by listeners once this transaction commits
+        eventPublisher.publishEvent(new OrderPlacedEvent(savedOrder.getId(), Map.copyOf(unitsByProduct)));
 
+        // Queued in this transaction and delivered by EmailOutboxWorker after commit
         try {
-            Order dbOrder = orderRepository.findById(savedOrder.getId()).orElse(savedOrder);
-            if (dbOrder.getItems() != null) {
-                dbOrder.getItems().size();
-            }
+            String customerName = customerName(savedOrder);
 
-            String customerName = savedOrder.getUserName();
-            if (customerName == null || customerName.isBlank()) {
-                String firstName = savedOrder.getFirstName() == null ? "" : savedOrder.getFirstName().trim();
-                String lastName = savedOrder.getLastName() == null ? "" : savedOrder.getLastName().trim();
-                customerName = (firstName + " " + lastName).trim();
-            }
-
-            emailService.sendOrderInvoiceEmail(dbOrder, customerName);
-            emailService.sendAdminNewOrderNotification(dbOrder, customerName);
-        } catch (Exception e) {
-            log.error("Order email failed but order created", e);
+            emailService.sendOrderInvoiceEmail(savedOrder, customerName);
+            emailService.sendAdminNewOrderNotification(savedOrder, customerName);
+        } catch (IllegalArgumentException e) {
+            log.error("Order email could not be queued but order created", e);
         }
 
         return savedOrder;
@@ -138,8 +170,80 @@ public class OrderService {
         return createOrder(orderRequest, null);
     }
 
+    // Order with its lines loaded, for answering an idempotent checkout replay outside a transaction
+    @Transactional(readOnly = true)
+    public Order getOrderWithItems(Long id) {
+        Order order = getOrderById(id);
+        Hibernate.initialize(order.getItems());
+        return order;
+    }
+
     public List<Order> getAllOrders() {
-        return orderRepository.findAllByOrderByCreatedAtDesc();
+        return orderRepository.findAllByOrderByCreatedAtDesc(PageRequest.of(0, LEGACY_ADMIN_LIMIT));
+    }
+
+    /**
+     * Admin order search, newest first. Rows are {@link OrderSummary} projections;
+     * pass nextCursor back to continue. Filters and cursor are validated here.
+     */
+    public CursorPage<OrderSummary> searchOrders(OrderFilter filter, String cursor, Integer size) {
+        int pageSize = pageSize(size);
+
+        if (filter.getStatus() != null && !filter.getStatus().isBlank()) {
+            OrderStatus status = OrderStatus.fromValue(filter.getStatus())
+                    .orElseThrow(() -> new BadRequestException("Unknown order status: " + filter.getStatus()));
+            filter.setStatus(status.value());
+        } else {
+            filter.setStatus(null);
+        }
+        if (filter.getFrom() != null && filter.getTo() != null && filter.getFrom().isAfter(filter.getTo())) {
+            throw new BadRequestException("'from' must not be after 'to'");
+        }
+
+        KeysetCursor after = KeysetCursor.decode(cursor, CURSOR_SORT);
+        List<OrderSummary> rows = orderRepository.searchSummaries(
+                filter, createdAtOf(after), after == null ? null : after.getId(), pageSize + 1);
+        return toPage(rows, pageSize, CURSOR_SORT, OrderSummary::getCreatedAt, OrderSummary::getId);
+    }
+
+    /**
+     * A customer's orders, newest first, with the line snapshots taken at checkout.
+     * Reads only orders and order_items, in one statement per page.
+     */
+    public CursorPage<OrderHistoryView> getOrderHistoryPage(String email, String cursor, Integer size) {
+        int pageSize = pageSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor, HISTORY_CURSOR_SORT);
+        List<OrderHistoryView> rows = orderRepository.findHistory(
+                email, createdAtOf(after), after == null ? null : after.getId(), pageSize + 1);
+        return toPage(rows, pageSize, HISTORY_CURSOR_SORT, OrderHistoryView::getCreatedAt, OrderHistoryView::getId);
+    }
+
+    private static <T> CursorPage<T> toPage(List<T> rows, int pageSize, String sort,
+                                            Function<T, LocalDateTime> createdAt, Function<T, Long> id) {
+        boolean hasMore = rows.size() > pageSize;
+        List<T> items = hasMore ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            T last = items.get(items.size() - 1);
+            nextCursor = new KeysetCursor(sort, createdAt.apply(last).toString(), id.apply(last)).encode();
+        }
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+
+    private static LocalDateTime createdAtOf(KeysetCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(cursor.getValue());
+        } catch (DateTimeParseException | NullPointerException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    private static int pageSize(Integer size) {
+        return (size == null || size <= 0) ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
     }
 
     public List<Order> getUserOrders(Long userId) {
@@ -151,28 +255,63 @@ public class OrderService {
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
     }
 
+    /**
+     * Moves an order along {@link OrderStatus}; repeating the current status is a no-op.
+     * Cancelling returns the reserved units to stock in one batch. Caches, rating
+     * aggregates and notifications react to the published {@link OrderStatusChangedEvent}.
+     */
     @Transactional
     public Order updateOrderStatus(Long id, String status) {
-        Order order = getOrderById(id);
-        String oldStatus = order.getStatus();
-
-        // ✅ RESTORE STOCK IF ORDER IS CANCELLED
-        // Only restore stock if transitioning TO cancelled status
-        if ("cancelled".equalsIgnoreCase(status) && !"cancelled".equalsIgnoreCase(oldStatus)) {
-            for (OrderItem item : order.getItems()) {
-                Product product = item.getProduct();
-
-                // Restore the quantity back to stock
-                product.setStock(product.getStock() + item.getQuantity());
-                product.setInStock(product.getStock() > 0);
-                productRepository.save(product);
+        OrderStatus target = OrderStatus.fromValue(status)
+                .orElseThrow(() -> new BadRequestException("Unknown order status: " + status));
+
+        Order order = orderRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
+        // Rows written before statuses were validated are treated as still pending
+        OrderStatus current = OrderStatus.fromValue(order.getStatus()).orElse(OrderStatus.PENDING);
+
+        if (current == target) {
+            return order;
+        }
+        if (!current.canTransitionTo(target)) {
+            throw new BadRequestException("Cannot change order status from "
+                    + current.value() + " to " + target.value());
+        }
+
+        Map<Long, Integer> unitsByProduct = new HashMap<>();
+        Map<Long, Integer> linesByProduct = new HashMap<>();
+        for (OrderItem item : order.getItems()) {
+            if (item.getProduct() != null) {
+                unitsByProduct.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+                linesByProduct.merge(item.getProduct().getId(), 1, Integer::sum);
             }
         }
 
-        // ✅ NO STOCK CHANGE for other status updates (processing, shipped, delivered)
-        // Stock was already reserved when order was created
+        // ✅ RESTORE STOCK IF ORDER IS CANCELLED (other transitions keep the reservation made at checkout)
+        if (target == OrderStatus.CANCELLED) {
+            stockReservationService.release(unitsByProduct);
+        }
 
-        order.setStatus(status);
-        return orderRepository.save(order);
+        order.setStatus(target.value());
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                order.getId(),
+                order.getEmail(),
+                customerName(order),
+                current,
+                target,
+                Map.copyOf(unitsByProduct),
+                Map.copyOf(linesByProduct)
+        ));
+        return order;
+    }
+
+    private static String customerName(Order order) {
+        String customerName = order.getUserName();
+        if (customerName == null || customerName.isBlank()) {
+            String firstName = order.getFirstName() == null ? "" : order.getFirstName().trim();
+            String lastName = order.getLastName() == null ? "" : order.getLastName().trim();
+            customerName = (firstName + " " + lastName).trim();
+        }
+        return customerName;
     }
 }
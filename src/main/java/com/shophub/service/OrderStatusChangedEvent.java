@@ -0,0 +1,33 @@
+package com.shophub.service;
+
+import com.shophub.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Published by OrderService inside the status-change transaction. Carries everything
+ * listeners need (per-product units and lines, recipient) so none of them reloads the order.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderStatusChangedEvent {
+
+    private final Long orderId;
+    private final String email;
+    private final String customerName;
+    private final OrderStatus from;
+    private final OrderStatus to;
+    // productId -> units ordered (stock), productId -> order lines (purchase counts)
+    private final Map<Long, Integer> unitsByProduct;
+    private final Map<Long, Integer> linesByProduct;
+
+    public boolean entered(OrderStatus status) {
+        return to == status && from != status;
+    }
+
+    public boolean left(OrderStatus status) {
+        return from == status && to != status;
+    }
+}
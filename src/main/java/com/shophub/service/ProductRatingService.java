@@ -0,0 +1,157 @@
+package com.shophub.service;
+
+import com.shophub.model.OrderStatus;
+import com.shophub.model.ProductRatingStats;
+import com.shophub.repository.OrderRepository;
+import com.shophub.repository.ProductRatingStatsRepository;
+import com.shophub.repository.ProductRepository;
+import com.shophub.repository.ReviewRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Keeps product_rating_stats (count, sum, 1-5 star histogram, delivered purchases)
+ * in step with reviews and order deliveries using in-place increments, and mirrors
+ * reviewCount/averageRating onto the product row so listings carry them for free.
+ * <p>
+ * The increment locks the stats row until commit, so concurrent reviews of one
+ * product serialize there and the product summary is always written from fresh totals.
+ */
+@Service
+public class ProductRatingService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductRatingService.class);
+
+    private static final int BACKFILL_CHUNK = 500;
+
+    private final ProductRatingStatsRepository statsRepository;
+    private final ReviewRepository reviewRepository;
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final CatalogCache catalogCache;
+    private final TransactionTemplate transactionTemplate;
+
+    public ProductRatingService(ProductRatingStatsRepository statsRepository,
+                                ReviewRepository reviewRepository,
+                                OrderRepository orderRepository,
+                                ProductRepository productRepository,
+                                CatalogCache catalogCache,
+                                TransactionTemplate transactionTemplate) {
+        this.statsRepository = statsRepository;
+        this.reviewRepository = reviewRepository;
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.catalogCache = catalogCache;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Builds aggregates for products that have none yet (first deploy, or rows created outside this service)
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        List<Long> missing = statsRepository.findProductIdsWithoutStats();
+        for (int from = 0; from < missing.size(); from += BACKFILL_CHUNK) {
+            List<Long> chunk = missing.subList(from, Math.min(from + BACKFILL_CHUNK, missing.size()));
+            transactionTemplate.executeWithoutResult(status -> rebuild(chunk));
+        }
+        if (!missing.isEmpty()) {
+            log.info("Backfilled rating stats for {} products", missing.size());
+        }
+    }
+
+    // Called for new products so the first reviews only ever increment an existing row
+    @Transactional
+    public void createEmptyStats(Long productId) {
+        statsRepository.insertEmptyIfAbsent(productId);
+    }
+
+    public Optional<ProductRatingStats> getStats(Long productId) {
+        return statsRepository.findById(productId);
+    }
+
+    @Transactional
+    public void reviewAdded(Long productId, int rating) {
+        applyReview(productId, rating, 1);
+    }
+
+    @Transactional
+    public void reviewRemoved(Long productId, int rating) {
+        applyReview(productId, rating, -1);
+    }
+
+    // Runs inside the status-change transaction, so purchase counts commit together with the status
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.entered(OrderStatus.DELIVERED)) {
+            applyPurchases(event.getLinesByProduct(), 1);
+        } else if (event.left(OrderStatus.DELIVERED)) {
+            applyPurchases(event.getLinesByProduct(), -1);
+        }
+    }
+
+    private void applyPurchases(Map<Long, Integer> linesByProduct, int delta) {
+        // Ascending ids keep lock order consistent between concurrent deliveries
+        linesByProduct.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> {
+                    if (statsRepository.applyPurchases(e.getKey(), (long) e.getValue() * delta) == 0) {
+                        rebuild(List.of(e.getKey()));
+                    }
+                });
+    }
+
+    private void applyReview(Long productId, int rating, int delta) {
+        if (rating < 1 || rating > 5) {
+            // Never counted (see ReviewRepository.countRatingsByProduct), e.g. deleting a legacy review
+            return;
+        }
+        if (statsRepository.applyReview(productId, rating, delta) == 0) {
+            // No aggregate yet: the review is already written, so a rebuild includes it
+            rebuild(List.of(productId));
+            return;
+        }
+
+        ProductRatingStats stats = statsRepository.findById(productId).orElseThrow();
+        writeSummary(stats);
+    }
+
+    // Recounts from reviews and delivered orders. The rows are created if missing and locked first, so a rebuild
+    // racing another rebuild or an increment of the same product waits for it and then counts its writes too.
+    private void rebuild(List<Long> productIds) {
+        productIds.stream().sorted().forEach(statsRepository::insertEmptyIfAbsent);
+
+        Map<Long, ProductRatingStats> byProduct = new HashMap<>();
+        for (ProductRatingStats stats : statsRepository.findAllForUpdate(productIds)) {
+            stats.reset();
+            byProduct.put(stats.getProductId(), stats);
+        }
+
+        for (Object[] row : reviewRepository.countRatingsByProduct(productIds)) {
+            byProduct.get((Long) row[0]).addRating((Integer) row[1], (Long) row[2]);
+        }
+        for (Object[] row : orderRepository.countDeliveredItemsByProducts(productIds)) {
+            byProduct.get((Long) row[0]).setPurchaseCount((Long) row[1]);
+        }
+
+        // Managed rows: the recount is flushed by dirty checking
+        byProduct.values().forEach(this::writeSummary);
+    }
+
+    private void writeSummary(ProductRatingStats stats) {
+        productRepository.updateRatingSummary(
+                stats.getProductId(),
+                (int) stats.getReviewCount(),
+                stats.getAverageRating()
+        );
+        catalogCache.invalidateDetail(stats.getProductId());
+    }
+}
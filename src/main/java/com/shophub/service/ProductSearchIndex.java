@@ -0,0 +1,277 @@
+package com.shophub.service;
+
+import com.shophub.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over active products' name, category and description.
+ * Queries are answered from memory only: exact terms score highest, then prefix
+ * matches, then terms within a small edit distance (typo tolerance).
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    private static final float EXACT_MATCH = 1.0f;
+    private static final float PREFIX_MATCH = 0.7f;
+    private static final float FUZZY_MATCH = 0.5f;
+
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    // term -> (productId -> field-weighted term frequency)
+    private final TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    // productId -> terms indexed for it, so a product can be re-indexed in place
+    private final Map<Long, Set<String>> documentTerms = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void rebuild(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documentTerms.clear();
+            for (Product product : products) {
+                addLocked(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product search index built with {} products", products.size());
+    }
+
+    public void index(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(product.getId());
+            if (product.isActive()) {
+                addLocked(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns ids of matching products ordered by relevance. Every query term must
+     * match (prefix or typo match counts); if nothing matches all terms, products
+     * matching any of them are returned instead.
+     */
+    public List<Long> search(String query) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentCount = Math.max(1, documentTerms.size());
+            Map<Long, Float> scores = new HashMap<>();
+            Map<Long, Integer> matchedTerms = new HashMap<>();
+
+            for (String queryTerm : queryTerms) {
+                Map<Long, Float> termScores = new HashMap<>();
+                for (Map.Entry<String, Float> candidate : expand(queryTerm).entrySet()) {
+                    Map<Long, Float> docs = postings.get(candidate.getKey());
+                    float idf = (float) Math.log(1.0 + (double) documentCount / docs.size());
+                    for (Map.Entry<Long, Float> doc : docs.entrySet()) {
+                        float score = candidate.getValue() * idf * doc.getValue();
+                        termScores.merge(doc.getKey(), score, Math::max);
+                    }
+                }
+                for (Map.Entry<Long, Float> termScore : termScores.entrySet()) {
+                    scores.merge(termScore.getKey(), termScore.getValue(), Float::sum);
+                    matchedTerms.merge(termScore.getKey(), 1, Integer::sum);
+                }
+            }
+
+            List<Long> ids = new ArrayList<>();
+            for (Map.Entry<Long, Integer> entry : matchedTerms.entrySet()) {
+                if (entry.getValue() == queryTerms.size()) {
+                    ids.add(entry.getKey());
+                }
+            }
+            if (ids.isEmpty()) {
+                ids.addAll(scores.keySet());
+            }
+
+            ids.sort((a, b) -> {
+                int byScore = Float.compare(scores.get(b), scores.get(a));
+                return byScore != 0 ? byScore : Long.compare(b, a);
+            });
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Index terms a query term can match, with the match-quality multiplier for each
+    private Map<String, Float> expand(String queryTerm) {
+        Map<String, Float> candidates = new HashMap<>();
+        if (postings.containsKey(queryTerm)) {
+            candidates.put(queryTerm, EXACT_MATCH);
+        }
+
+        NavigableMap<String, Map<Long, Float>> prefixed =
+                postings.subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, false);
+        int expansions = 0;
+        for (String term : prefixed.keySet()) {
+            if (expansions++ >= MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            candidates.put(term, PREFIX_MATCH);
+        }
+
+        int maxDistance = queryTerm.length() >= 8 ? 2 : queryTerm.length() >= 4 ? 1 : 0;
+        if (candidates.isEmpty() && maxDistance > 0) {
+            for (String term : postings.keySet()) {
+                if (Math.abs(term.length() - queryTerm.length()) <= maxDistance
+                        && sharesLeadingCharacter(queryTerm, term)
+                        && withinDistance(queryTerm, term, maxDistance)) {
+                    candidates.put(term, FUZZY_MATCH);
+                }
+            }
+        }
+
+        return candidates;
+    }
+
+    private void addLocked(Product product) {
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, product.getName(), NAME_WEIGHT);
+        addField(weights, product.getCategoryName(), CATEGORY_WEIGHT);
+        addField(weights, product.getDescription(), DESCRIPTION_WEIGHT);
+
+        for (Map.Entry<String, Float> entry : weights.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new HashMap<>())
+                    .put(product.getId(), entry.getValue());
+        }
+        documentTerms.put(product.getId(), Set.copyOf(weights.keySet()));
+    }
+
+    private void removeLocked(Long productId) {
+        Set<String> terms = documentTerms.remove(productId);
+        if (terms == null) {
+            return;
+        }
+
+        for (String term : terms) {
+            Map<Long, Float> docs = postings.get(term);
+            if (docs == null) {
+                continue;
+            }
+            docs.remove(productId);
+            if (docs.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static void addField(Map<String, Float> weights, String text, float weight) {
+        for (String term : tokenize(text)) {
+            weights.merge(term, weight, Float::sum);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+
+        String normalized = COMBINING_MARKS
+                .matcher(Normalizer.normalize(text, Normalizer.Form.NFKD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(c);
+            } else if (current.length() > 0) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    // Cheap pre-filter: a typo rarely hits both of the first two characters
+    private static boolean sharesLeadingCharacter(String a, String b) {
+        return a.charAt(0) == b.charAt(0)
+                || (a.length() > 1 && b.length() > 1 && a.charAt(1) == b.charAt(1));
+    }
+
+    // Bounded Levenshtein: gives up as soon as every cell in a row exceeds maxDistance
+    private static boolean withinDistance(String a, String b, int maxDistance) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxDistance) {
+                return false;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()] <= maxDistance;
+    }
+}
@@ -1,14 +1,28 @@
 package com.shophub.service;
 
+import com.shophub.dto.CursorPage;
+import com.shophub.dto.KeysetCursor;
+import com.shophub.dto.ProductFilter;
+import com.shophub.dto.ProductSort;
+import com.shophub.dto.SearchPage;
+import com.shophub.dto.StoredImage;
+import com.shophub.dto.Suggestion;
 import com.shophub.exception.BadRequestException;
 import com.shophub.exception.ResourceNotFoundException;
 import com.shophub.model.Product;
 import com.shophub.repository.ProductRepository;
+import com.shophub.repository.ProductSpecifications;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -18,39 +32,140 @@ import java.util.Set;
 @Service
 public class ProductService {
 
-    private static final String PRODUCT_IMAGE_FOLDER = "products";
+    static final String PRODUCT_IMAGE_FOLDER = "products";
 
-    private final ProductRepository productRepository;
-    private final CloudinaryService cloudinaryService;
+    private static final int DEFAULT_PAGE_SIZE = 24;
+    private static final int MAX_PAGE_SIZE = 100;
 
-    public ProductService(ProductRepository productRepository, CloudinaryService cloudinaryService) {
+    private final ProductRepository productRepository;
+    private final AssetGarbageCollector assetGarbageCollector;
+    private final ImageIngestionService imageIngestionService;
+    private final CatalogCache catalogCache;
+    private final ProductSearchIndex searchIndex;
+    private final ProductSuggestService suggestService;
+    private final ProductRatingService ratingService;
+
+    @Value("${catalog.legacy-list-limit:500}")
+    private int legacyListLimit;
+
+    public ProductService(
+            ProductRepository productRepository,
+            AssetGarbageCollector assetGarbageCollector,
+            ImageIngestionService imageIngestionService,
+            CatalogCache catalogCache,
+            ProductSearchIndex searchIndex,
+            ProductSuggestService suggestService,
+            ProductRatingService ratingService
+    ) {
         this.productRepository = productRepository;
-        this.cloudinaryService = cloudinaryService;
+        this.assetGarbageCollector = assetGarbageCollector;
+        this.imageIngestionService = imageIngestionService;
+        this.catalogCache = catalogCache;
+        this.searchIndex = searchIndex;
+        this.suggestService = suggestService;
+        this.ratingService = ratingService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndex() {
+        searchIndex.rebuild(productRepository.findByActiveTrue());
     }
 
+    // Legacy unpaginated listing, capped so it cannot return the whole catalog
     public List<Product> getAllProducts() {
-        return productRepository.findByActiveTrue();
+        return catalogCache.getList(CatalogCache.ALL_KEY, () -> productRepository.findByActiveTrue(
+                PageRequest.of(0, legacyListLimit, Sort.by(Sort.Direction.DESC, "id"))
+        ));
+    }
+
+    public CursorPage<Product> getProductPage(ProductFilter filter, ProductSort sort, String cursor, Integer size) {
+        int pageSize = (size == null || size <= 0) ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        String cacheKey = filter + "|" + sort + "|" + cursor + "|" + pageSize;
+        return catalogCache.getPage(cacheKey, () -> loadProductPage(filter, sort, cursor, pageSize));
+    }
+
+    private CursorPage<Product> loadProductPage(ProductFilter filter, ProductSort sort, String cursor, int pageSize) {
+        KeysetCursor after = KeysetCursor.decode(cursor, sort.name());
+        Specification<Product> matching = ProductSpecifications.activeMatching(filter);
+
+        // Rows with a sort key first, then (nulls last) the ones without, see ProductSpecifications
+        boolean nullSection = ProductSpecifications.hasNullKeys(sort) && after != null && after.getValue() == null;
+        List<Product> rows = new ArrayList<>();
+        try {
+            if (!nullSection) {
+                rows.addAll(productRepository.findBy(
+                        matching.and(ProductSpecifications.after(sort, after)),
+                        query -> query.sortBy(ProductSpecifications.sortFor(sort)).limit(pageSize + 1).all()
+                ));
+            }
+            if (rows.size() <= pageSize && ProductSpecifications.hasNullKeys(sort)) {
+                int remaining = pageSize + 1 - rows.size();
+                rows.addAll(productRepository.findBy(
+                        matching.and(ProductSpecifications.nullKeyAfter(sort, after)),
+                        query -> query.sortBy(ProductSpecifications.nullKeySortFor(sort)).limit(remaining).all()
+                ));
+            }
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<Product> items = hasMore ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            Product last = items.get(items.size() - 1);
+            nextCursor = new KeysetCursor(sort.name(), ProductSpecifications.sortValueOf(sort, last), last.getId()).encode();
+        }
+
+        return new CursorPage<>(items, nextCursor, hasMore);
     }
 
     public List<Product> getAllProductsAdmin() {
-        return productRepository.findAll();
+        return catalogCache.getList(CatalogCache.ADMIN_KEY, productRepository::findAll);
     }
 
+    // Cached, shared instance: do not mutate. Write paths use loadProduct instead.
     public Product getProductById(Long id) {
-        return productRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
+        Product product = catalogCache.getProduct(id, () -> productRepository.findById(id).orElse(null));
+        if (product == null) {
+            throw new ResourceNotFoundException("Product not found");
+        }
+        return product;
     }
 
     public List<Product> getProductsByCategory(String category) {
-        return productRepository.findByCategory(category);
+        return catalogCache.getList(
+                CatalogCache.categoryKey(category),
+                () -> productRepository.findByCategory(category)
+        );
     }
 
     public List<Product> searchProducts(String keyword) {
-        return productRepository.findByNameContainingIgnoreCase(keyword);
+        return searchProducts(keyword, 0, MAX_PAGE_SIZE).getItems();
+    }
+
+    // Relevance-ranked search served from the in-memory index; products come from the catalog cache.
+    // Only the requested page is resolved, so a cold cache costs one findAllById per page at most.
+    public SearchPage<Product> searchProducts(String query, Integer page, Integer size) {
+        int pageSize = (size == null || size <= 0) ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        int pageNumber = (page == null || page < 0) ? 0 : page;
+
+        List<Long> ids = searchIndex.search(query);
+        int from = (int) Math.min((long) pageNumber * pageSize, ids.size());
+        int to = Math.min(from + pageSize, ids.size());
+
+        List<Product> items = catalogCache.getProducts(ids.subList(from, to), productRepository::findAllById);
+        return new SearchPage<>(items, ids.size(), pageNumber, pageSize);
     }
 
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        ratingService.createEmptyStats(saved.getId());
+        catalogCache.invalidateProduct(saved.getId(), Set.of(), catalogCache.listKeysFor(saved));
+        searchIndex.index(saved);
+        suggestService.upsertProduct(saved);
+        return saved;
     }
 
     public Product createProductWithImages(
@@ -60,13 +175,28 @@ public class ProductService {
             MultipartFile[] additionalImageFiles,
             List<String> additionalImageUrls
     ) {
-        applyMainImage(product, imageFile, imageUrl, false);
-        applyAdditionalImages(product, additionalImageFiles, additionalImageUrls, null);
-        return productRepository.save(product);
+        ImageUploads uploads = uploadImages(imageFile, additionalImageFiles);
+        List<String> replacedPublicIds = new ArrayList<>();
+        Product saved;
+        try {
+            applyMainImage(product, uploads.main, imageUrl, false, replacedPublicIds);
+            applyAdditionalImages(product, uploads.additional, additionalImageUrls, null, replacedPublicIds);
+            saved = productRepository.save(product);
+        } catch (RuntimeException e) {
+            imageIngestionService.deleteQuietly(uploads.all);
+            throw e;
+        }
+
+        ratingService.createEmptyStats(saved.getId());
+        catalogCache.invalidateProduct(saved.getId(), Set.of(), catalogCache.listKeysFor(saved));
+        searchIndex.index(saved);
+        suggestService.upsertProduct(saved);
+        return saved;
     }
 
     public Product updateProduct(Long id, Product productDetails) {
-        Product product = getProductById(id);
+        Product product = loadProduct(id);
+        Set<String> previousKeys = catalogCache.listKeysFor(product);
 
         product.setName(productDetails.getName());
         product.setDescription(productDetails.getDescription());
@@ -81,7 +211,11 @@ public class ProductService {
         product.setBadge(productDetails.getBadge());
         product.setInStock(productDetails.getStock() > 0);
 
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        catalogCache.invalidateProduct(id, previousKeys, catalogCache.listKeysFor(saved));
+        searchIndex.index(saved);
+        suggestService.upsertProduct(saved);
+        return saved;
     }
 
     public Product updateProductWithImages(
@@ -94,7 +228,8 @@ public class ProductService {
             List<String> additionalImageUrls,
             List<String> existingAdditionalImages
     ) {
-        Product existingProduct = getProductById(id);
+        Product existingProduct = loadProduct(id);
+        Set<String> previousKeys = catalogCache.listKeysFor(existingProduct);
 
         existingProduct.setName(product.getName());
         existingProduct.setDescription(product.getDescription());
@@ -106,73 +241,133 @@ public class ProductService {
         existingProduct.setRating(product.getRating());
         existingProduct.setInStock(product.getStock() > 0);
 
-        applyMainImage(existingProduct, imageFile, imageUrl, Boolean.TRUE.equals(keepExistingImage));
-        applyAdditionalImages(existingProduct, additionalImageFiles, additionalImageUrls, existingAdditionalImages);
+        ImageUploads uploads = uploadImages(imageFile, additionalImageFiles);
+        List<String> replacedPublicIds = new ArrayList<>();
+        Product saved;
+        try {
+            applyMainImage(existingProduct, uploads.main, imageUrl, Boolean.TRUE.equals(keepExistingImage), replacedPublicIds);
+            applyAdditionalImages(existingProduct, uploads.additional, additionalImageUrls, existingAdditionalImages, replacedPublicIds);
+            saved = productRepository.save(existingProduct);
+        } catch (RuntimeException e) {
+            imageIngestionService.deleteQuietly(uploads.all);
+            throw e;
+        }
 
-        return productRepository.save(existingProduct);
+        // Old assets go only once the product no longer points at them, off the request path
+        assetGarbageCollector.enqueue(replacedPublicIds);
+        catalogCache.invalidateProduct(id, previousKeys, catalogCache.listKeysFor(saved));
+        searchIndex.index(saved);
+        suggestService.upsertProduct(saved);
+        return saved;
     }
 
     public void deleteProduct(Long id) {
-        Product product = getProductById(id);
+        Product product = loadProduct(id);
+        Set<String> previousKeys = catalogCache.listKeysFor(product);
 
         product.setActive(false);
         product.setInStock(false);
         product.setStock(0);
 
         productRepository.save(product);
+        catalogCache.invalidateProduct(id, previousKeys, Set.of());
+        searchIndex.remove(id);
+        suggestService.removeProduct(id);
+    }
+
+    // A renamed or deleted category changes getCategoryName() of its products without touching them
+    public void reindexProducts(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Set<Long> remaining = new HashSet<>(productIds);
+        for (Product product : productRepository.findAllById(productIds)) {
+            remaining.remove(product.getId());
+            catalogCache.invalidateDetail(product.getId());
+            searchIndex.index(product);
+            suggestService.upsertProduct(product);
+        }
+        for (Long id : remaining) {
+            catalogCache.invalidateDetail(id);
+            searchIndex.remove(id);
+            suggestService.removeProduct(id);
+        }
     }
 
     public List<Product> getSaleProducts() {
-        return productRepository.findByBadge("SALE");
+        return catalogCache.getList(CatalogCache.SALE_KEY, () -> productRepository.findByBadge("SALE"));
     }
 
-    private void applyMainImage(Product product, MultipartFile imageFile, String imageUrl, boolean keepExistingImage) {
-        if (imageFile != null && !imageFile.isEmpty()) {
-            deleteMainImageIfExists(product);
-            Map uploadResult;
-            try {
-                uploadResult = cloudinaryService.uploadFile(imageFile, PRODUCT_IMAGE_FOLDER);
-            } catch (IOException e) {
-                throw new BadRequestException("Failed to upload product image");
+    public List<Suggestion> suggest(String query, Integer limit) {
+        return suggestService.suggest(query, limit == null ? 8 : limit);
+    }
+
+    private Product loadProduct(Long id) {
+        return productRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
+    }
+
+    // Main image first, then additional images; all uploaded in parallel, or none
+    private ImageUploads uploadImages(MultipartFile imageFile, MultipartFile[] additionalImageFiles) {
+        List<MultipartFile> files = new ArrayList<>();
+        boolean hasMain = imageFile != null && !imageFile.isEmpty();
+        if (hasMain) {
+            files.add(imageFile);
+        }
+        if (additionalImageFiles != null) {
+            for (MultipartFile file : additionalImageFiles) {
+                if (file != null && !file.isEmpty()) {
+                    files.add(file);
+                }
             }
-            product.setImage(uploadResult.get("secure_url").toString());
-            product.setImagePublicId(uploadResult.get("public_id").toString());
+        }
+
+        List<StoredImage> stored = imageIngestionService.uploadAll(files, PRODUCT_IMAGE_FOLDER);
+        return new ImageUploads(
+                hasMain ? stored.get(0) : null,
+                stored.subList(hasMain ? 1 : 0, stored.size()),
+                stored
+        );
+    }
+
+    private void applyMainImage(Product product, StoredImage uploadedMain, String imageUrl,
+                                boolean keepExistingImage, List<String> replacedPublicIds) {
+        if (uploadedMain != null) {
+            replaceMainImage(product, replacedPublicIds);
+            product.setImage(uploadedMain.getUrl());
+            product.setImagePublicId(uploadedMain.getPublicId());
             return;
         }
 
         if (imageUrl != null && !imageUrl.trim().isEmpty()) {
-            deleteMainImageIfExists(product);
+            replaceMainImage(product, replacedPublicIds);
             product.setImage(imageUrl);
             product.setImagePublicId(null);
             return;
         }
 
         if (!keepExistingImage) {
-            deleteMainImageIfExists(product);
+            replaceMainImage(product, replacedPublicIds);
             product.setImage("https://via.placeholder.com/300x300?text=No+Image");
             product.setImagePublicId(null);
         }
     }
 
-    private void deleteMainImageIfExists(Product product) {
+    private void replaceMainImage(Product product, List<String> replacedPublicIds) {
         if (product.getImagePublicId() == null || product.getImagePublicId().isBlank()) {
             return;
         }
 
-        try {
-            cloudinaryService.deleteFile(product.getImagePublicId());
-        } catch (IOException e) {
-            throw new BadRequestException("Failed to delete existing product image");
-        }
-
+        replacedPublicIds.add(product.getImagePublicId());
         product.setImagePublicId(null);
     }
 
     private void applyAdditionalImages(
             Product product,
-            MultipartFile[] additionalImageFiles,
+            List<StoredImage> uploadedAdditional,
             List<String> additionalImageUrls,
-            List<String> existingAdditionalImages
+            List<String> existingAdditionalImages,
+            List<String> replacedPublicIds
     ) {
         List<String> currentImages = product.getAdditionalImages() != null
             ? new ArrayList<>(product.getAdditionalImages())
@@ -204,30 +399,20 @@ public class ProductService {
 
         List<String> updatedAdditionalImages = new ArrayList<>();
         List<String> updatedAdditionalPublicIds = new ArrayList<>();
+        Set<String> keptPublicIds = new HashSet<>();
         for (String url : keptImages) {
             if (url == null || url.isBlank()) {
                 continue;
             }
             updatedAdditionalImages.add(url);
             updatedAdditionalPublicIds.add(urlToPublicId.get(url));
+            keptPublicIds.add(urlToPublicId.get(url));
         }
 
-        if (additionalImageFiles != null) {
-            for (MultipartFile file : additionalImageFiles) {
-                if (file == null || file.isEmpty()) {
-                    continue;
-                }
-
-                Map uploadResult;
-                try {
-                    uploadResult = cloudinaryService.uploadFile(file, PRODUCT_IMAGE_FOLDER);
-                } catch (IOException e) {
-                    throw new BadRequestException("Failed to upload additional product image");
-                }
-
-                updatedAdditionalImages.add(uploadResult.get("secure_url").toString());
-                updatedAdditionalPublicIds.add(uploadResult.get("public_id").toString());
-            }
+        for (StoredImage image : uploadedAdditional) {
+            updatedAdditionalImages.add(image.getUrl());
+            updatedAdditionalPublicIds.add(image.getPublicId());
+            keptPublicIds.add(image.getPublicId());
         }
 
         if (additionalImageUrls != null) {
@@ -240,19 +425,15 @@ public class ProductService {
             }
         }
 
-        // Delete removed additional images (Cloudinary public IDs no longer referenced)
+        // Removed additional images (public IDs no longer referenced) are queued for deletion after save
         if (product.getAdditionalImagePublicIds() != null) {
             for (String oldPublicId : product.getAdditionalImagePublicIds()) {
                 if (oldPublicId == null || oldPublicId.isBlank()) {
                     continue;
                 }
 
-                if (!updatedAdditionalPublicIds.contains(oldPublicId)) {
-                    try {
-                        cloudinaryService.deleteFile(oldPublicId);
-                    } catch (IOException e) {
-                        throw new BadRequestException("Failed to delete removed additional image");
-                    }
+                if (!keptPublicIds.contains(oldPublicId)) {
+                    replacedPublicIds.add(oldPublicId);
                 }
             }
         }
@@ -260,4 +441,16 @@ public class ProductService {
         product.setAdditionalImages(updatedAdditionalImages);
         product.setAdditionalImagePublicIds(updatedAdditionalPublicIds);
     }
+
+    private static final class ImageUploads {
+        private final StoredImage main;
+        private final List<StoredImage> additional;
+        private final List<StoredImage> all;
+
+        private ImageUploads(StoredImage main, List<StoredImage> additional, List<StoredImage> all) {
+            this.main = main;
+            this.additional = additional;
+            this.all = all;
+        }
+    }
 }
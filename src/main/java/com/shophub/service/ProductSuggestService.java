@@ -0,0 +1,250 @@
+package com.shophub.service;
+
+import com.shophub.dto.Suggestion;
+import com.shophub.model.Category;
+import com.shophub.model.OrderStatus;
+import com.shophub.model.Product;
+import com.shophub.repository.CategoryRepository;
+import com.shophub.repository.OrderRepository;
+import com.shophub.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Search-as-you-type suggestions over product and category names, ranked by
+ * units ordered. Kept in sync by ProductService, CategoryController and
+ * OrderService instead of being rebuilt from the database.
+ */
+@Service
+public class ProductSuggestService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSuggestService.class);
+
+    private static final String PRODUCT = "product";
+    private static final String CATEGORY = "category";
+
+    private static final int TOP_K = 10;
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final OrderRepository orderRepository;
+
+    private final SuggestionTrie trie = new SuggestionTrie(TOP_K);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Popularity bookkeeping so category scores follow their products
+    private final Map<Long, Long> productUnits = new HashMap<>();
+    private final Map<Long, String> productNames = new HashMap<>();
+    private final Map<Long, String> productCategory = new HashMap<>();
+    private final Map<String, Long> categoryUnits = new HashMap<>();
+    private final Map<String, Category> categoriesByName = new HashMap<>();
+
+    public ProductSuggestService(
+            ProductRepository productRepository,
+            CategoryRepository categoryRepository,
+            OrderRepository orderRepository
+    ) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.orderRepository = orderRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Product> products = productRepository.findByActiveTrue();
+        List<Category> categories = categoryRepository.findAll();
+        List<Object[]> unitsOrdered = orderRepository.sumOrderedQuantityByProduct();
+
+        lock.writeLock().lock();
+        try {
+            trie.clear();
+            productUnits.clear();
+            productNames.clear();
+            productCategory.clear();
+            categoryUnits.clear();
+            categoriesByName.clear();
+
+            for (Object[] row : unitsOrdered) {
+                productUnits.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+            for (Product product : products) {
+                putProductLocked(product);
+            }
+            for (Category category : categories) {
+                putCategoryLocked(category);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Suggestion index built with {} products and {} categories", products.size(), categories.size());
+    }
+
+    public List<Suggestion> suggest(String query, int limit) {
+        int max = Math.max(1, Math.min(limit, TOP_K));
+        lock.readLock().lock();
+        try {
+            return trie.lookup(query, max);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void upsertProduct(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeProductLocked(product.getId());
+            if (product.isActive()) {
+                putProductLocked(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeProduct(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeProductLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void upsertCategory(Category category) {
+        if (category == null || category.getId() == null) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeCategoryLocked(category.getId());
+            putCategoryLocked(category);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeCategory(Long categoryId) {
+        lock.writeLock().lock();
+        try {
+            removeCategoryLocked(categoryId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Applied after each checkout commits so popular items climb the suggestions without a rebuild
+    public void recordOrderedUnits(Map<Long, Integer> unitsByProduct) {
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<Long, Integer> entry : unitsByProduct.entrySet()) {
+                Long productId = entry.getKey();
+                long units = entry.getValue();
+                productUnits.merge(productId, units, Long::sum);
+
+                Long score = trie.score(PRODUCT, productId);
+                if (score != null) {
+                    trie.put(new Suggestion(PRODUCT, productId, productNames.get(productId)), score + units);
+                }
+
+                String category = productCategory.get(productId);
+                if (category != null) {
+                    categoryUnits.merge(category, units, Long::sum);
+                    rescoreCategoryLocked(category);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // After commit, so a checkout that rolls back never inflates the ranking
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        recordOrderedUnits(event.getUnitsByProduct());
+    }
+
+    // Ranking counts units from orders that are not cancelled, so a cancellation takes them back
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.entered(OrderStatus.CANCELLED)) {
+            Map<Long, Integer> returned = new HashMap<>();
+            event.getUnitsByProduct().forEach((productId, units) -> returned.put(productId, -units));
+            recordOrderedUnits(returned);
+        }
+    }
+
+    private void putProductLocked(Product product) {
+        long units = productUnits.getOrDefault(product.getId(), 0L);
+        productNames.put(product.getId(), product.getName());
+        trie.put(new Suggestion(PRODUCT, product.getId(), product.getName()), units);
+
+        String category = normalize(product.getCategoryName());
+        if (category != null) {
+            productCategory.put(product.getId(), category);
+            categoryUnits.merge(category, units, Long::sum);
+            rescoreCategoryLocked(category);
+        }
+    }
+
+    private void removeProductLocked(Long productId) {
+        trie.remove(PRODUCT, productId);
+        productNames.remove(productId);
+
+        String category = productCategory.remove(productId);
+        if (category != null) {
+            long units = productUnits.getOrDefault(productId, 0L);
+            categoryUnits.merge(category, -units, Long::sum);
+            rescoreCategoryLocked(category);
+        }
+    }
+
+    private void putCategoryLocked(Category category) {
+        String name = normalize(category.getName());
+        if (name == null) {
+            return;
+        }
+        categoriesByName.put(name, category);
+        trie.put(
+                new Suggestion(CATEGORY, category.getId(), category.getName()),
+                categoryUnits.getOrDefault(name, 0L)
+        );
+    }
+
+    private void removeCategoryLocked(Long categoryId) {
+        trie.remove(CATEGORY, categoryId);
+        categoriesByName.values().removeIf(category -> categoryId.equals(category.getId()));
+    }
+
+    private void rescoreCategoryLocked(String name) {
+        Category category = categoriesByName.get(name);
+        if (category != null) {
+            trie.put(
+                    new Suggestion(CATEGORY, category.getId(), category.getName()),
+                    categoryUnits.getOrDefault(name, 0L)
+            );
+        }
+    }
+
+    private static String normalize(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,96 @@
+package com.shophub.service;
+
+import com.shophub.dto.CursorPage;
+import com.shophub.dto.KeysetCursor;
+import com.shophub.dto.ReviewView;
+import com.shophub.exception.BadRequestException;
+import com.shophub.repository.ReviewRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Read side of reviews: lean projections, keyset-paginated on (createdAt, id)
+@Service
+public class ReviewService {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Upper bound for the legacy unpaginated endpoints
+    private static final int LEGACY_LIMIT = 500;
+
+    private static final String CURSOR_SORT = "REVIEWS_NEWEST";
+
+    private final ReviewRepository reviewRepository;
+
+    public ReviewService(ReviewRepository reviewRepository) {
+        this.reviewRepository = reviewRepository;
+    }
+
+    public List<ReviewView> getProductReviews(Long productId) {
+        return reviewRepository.findViewsByProduct(productId, PageRequest.of(0, LEGACY_LIMIT));
+    }
+
+    public List<ReviewView> getUserReviews(Long userId) {
+        return reviewRepository.findViewsByUser(userId, PageRequest.of(0, LEGACY_LIMIT));
+    }
+
+    public CursorPage<ReviewView> getProductReviewPage(Long productId, String cursor, Integer size) {
+        int pageSize = pageSize(size);
+        KeysetCursor after = decode(cursor);
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<ReviewView> rows = after == null
+                ? reviewRepository.findDatedViewsByProduct(productId, limit)
+                : reviewRepository.findViewsByProductAfter(productId, createdAtOf(after), after.getId(), limit);
+        return toPage(rows, pageSize);
+    }
+
+    public CursorPage<ReviewView> getUserReviewPage(Long userId, String cursor, Integer size) {
+        int pageSize = pageSize(size);
+        KeysetCursor after = decode(cursor);
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<ReviewView> rows = after == null
+                ? reviewRepository.findDatedViewsByUser(userId, limit)
+                : reviewRepository.findViewsByUserAfter(userId, createdAtOf(after), after.getId(), limit);
+        return toPage(rows, pageSize);
+    }
+
+    private static CursorPage<ReviewView> toPage(List<ReviewView> rows, int pageSize) {
+        boolean hasMore = rows.size() > pageSize;
+        List<ReviewView> items = hasMore ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            ReviewView last = items.get(items.size() - 1);
+            nextCursor = new KeysetCursor(CURSOR_SORT, last.getCreatedAt().toString(), last.getId()).encode();
+        }
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+
+    private static KeysetCursor decode(String cursor) {
+        KeysetCursor after = KeysetCursor.decode(cursor, CURSOR_SORT);
+        if (after != null && after.getValue() == null) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        return after;
+    }
+
+    private static LocalDateTime createdAtOf(KeysetCursor cursor) {
+        try {
+            return LocalDateTime.parse(cursor.getValue());
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    private static int pageSize(Integer size) {
+        return (size == null || size <= 0) ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,98 @@
+package com.shophub.service;
+
+import com.shophub.exception.BadRequestException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reserves stock with one conditional UPDATE per product, sent as a single JDBC batch.
+ * The database decides atomically whether enough stock is left, so concurrent
+ * checkouts cannot oversell. Runs inside the caller's transaction: when any row
+ * cannot be reserved the exception rolls back every decrement already applied.
+ * Cancellations give stock back the same way, as one batch of relative increments.
+ */
+@Service
+public class StockReservationService {
+
+    private static final String RESERVE_SQL =
+            "UPDATE products SET stock = stock - ?, in_stock = (stock - ? > 0) " +
+            "WHERE id = ? AND active = true AND stock >= ?";
+
+    private static final String RELEASE_SQL =
+            "UPDATE products SET stock = stock + ?, in_stock = (stock + ? > 0) WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StockReservationService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param quantities units per product id; lines for the same product must already be summed
+     * @throws BadRequestException naming the first product that could not be reserved
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+
+        // Ascending id order so two carts sharing products lock rows in the same order (no deadlocks)
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        List<Long> ids = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> line : new TreeMap<>(quantities).entrySet()) {
+            int quantity = line.getValue();
+            if (quantity <= 0) {
+                throw new BadRequestException("Quantity must be positive");
+            }
+            args.add(new Object[]{quantity, quantity, line.getKey(), quantity});
+            ids.add(line.getKey());
+        }
+
+        int[] updated = jdbcTemplate.batchUpdate(RESERVE_SQL, args);
+
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                throw insufficientStock(ids.get(i), quantities.get(ids.get(i)));
+            }
+        }
+    }
+
+    /**
+     * Returns units to stock; relative increments, so concurrent checkouts on the same rows are not lost.
+     * Inactive products are restocked too, matching what the order originally took.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> line : new TreeMap<>(quantities).entrySet()) {
+            args.add(new Object[]{line.getValue(), line.getValue(), line.getKey()});
+        }
+        jdbcTemplate.batchUpdate(RELEASE_SQL, args);
+    }
+
+    // Only runs on the failure path, so the happy path stays a single batch
+    private BadRequestException insufficientStock(Long productId, int requested) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT name, stock FROM products WHERE id = ? AND active = true", productId);
+        if (rows.isEmpty()) {
+            return new BadRequestException("Product not available: " + productId);
+        }
+
+        Map<String, Object> product = rows.get(0);
+        return new BadRequestException("Insufficient stock for product: " + product.get("name") +
+                ". Available: " + product.get("stock") +
+                ", Requested: " + requested);
+    }
+}
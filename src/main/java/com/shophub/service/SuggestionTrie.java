@@ -0,0 +1,203 @@
+package com.shophub.service;
+
+import com.shophub.dto.Suggestion;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prefix trie where every node keeps its own top-K suggestions, so a lookup
+ * costs one walk down the prefix regardless of how many names share it.
+ * Each suggestion is reachable from its full name and from every word start.
+ * Not thread-safe; ProductSuggestService guards it.
+ */
+public class SuggestionTrie {
+
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingLong((Entry e) -> e.score).reversed()
+            .thenComparingInt(e -> e.suggestion.getText().length())
+            .thenComparing(e -> e.suggestion.getText());
+
+    private final int topK;
+    private final Node root = new Node();
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    public SuggestionTrie(int topK) {
+        this.topK = topK;
+    }
+
+    public void put(Suggestion suggestion, long score) {
+        String entryKey = entryKey(suggestion.getType(), suggestion.getId());
+        remove(suggestion.getType(), suggestion.getId());
+
+        List<String> tokens = ProductSearchIndex.tokenize(suggestion.getText());
+        if (tokens.isEmpty()) {
+            return;
+        }
+
+        Entry entry = new Entry(suggestion, score);
+        for (int i = 0; i < tokens.size(); i++) {
+            entry.keys.add(String.join(" ", tokens.subList(i, tokens.size())));
+        }
+        entries.put(entryKey, entry);
+
+        for (String key : entry.keys) {
+            List<Node> path = walk(key, true);
+            path.get(path.size() - 1).terminals.add(entry);
+            offer(path, entry);
+        }
+    }
+
+    public void remove(String type, Long id) {
+        Entry entry = entries.remove(entryKey(type, id));
+        if (entry == null) {
+            return;
+        }
+
+        for (String key : entry.keys) {
+            List<Node> path = walk(key, false);
+            if (path.size() == key.length() + 1) {
+                path.get(path.size() - 1).terminals.remove(entry);
+                withdraw(path, key, entry);
+            }
+        }
+    }
+
+    public Long score(String type, Long id) {
+        Entry entry = entries.get(entryKey(type, id));
+        return entry == null ? null : entry.score;
+    }
+
+    public List<Suggestion> lookup(String prefix, int limit) {
+        String normalized = String.join(" ", ProductSearchIndex.tokenize(prefix));
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+
+        Node node = root;
+        for (int i = 0; i < normalized.length() && node != null; i++) {
+            node = node.children.get(normalized.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+
+        List<Suggestion> result = new ArrayList<>(Math.min(limit, node.top.size()));
+        for (int i = 0; i < node.top.size() && i < limit; i++) {
+            result.add(node.top.get(i).suggestion);
+        }
+        return result;
+    }
+
+    public void clear() {
+        root.children.clear();
+        root.terminals.clear();
+        root.top = List.of();
+        entries.clear();
+    }
+
+    private List<Node> walk(String key, boolean create) {
+        List<Node> path = new ArrayList<>(key.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < key.length(); i++) {
+            Node next = node.children.get(key.charAt(i));
+            if (next == null) {
+                if (!create) {
+                    return path;
+                }
+                next = new Node();
+                node.children.put(key.charAt(i), next);
+            }
+            node = next;
+            path.add(node);
+        }
+        return path;
+    }
+
+    // A node's top-K is drawn from its children's, so once the entry misses one level it misses all above
+    private void offer(List<Node> path, Entry entry) {
+        for (int depth = path.size() - 1; depth >= 0; depth--) {
+            Node node = path.get(depth);
+            if (node.top.contains(entry)) {
+                continue;
+            }
+            if (node.top.size() >= topK && RANKING.compare(entry, node.top.get(node.top.size() - 1)) >= 0) {
+                return;
+            }
+
+            List<Entry> top = new ArrayList<>(node.top);
+            select(top, entry);
+            node.top = List.copyOf(top);
+        }
+    }
+
+    // Recompute only the nodes whose top-K held the removed entry, pruning nodes left empty
+    private void withdraw(List<Node> path, String key, Entry entry) {
+        for (int depth = path.size() - 1; depth >= 0; depth--) {
+            Node node = path.get(depth);
+
+            if (depth > 0 && node.terminals.isEmpty() && node.children.isEmpty()) {
+                path.get(depth - 1).children.remove(key.charAt(depth - 1));
+                continue;
+            }
+            if (!node.top.contains(entry)) {
+                return;
+            }
+
+            List<Entry> top = new ArrayList<>(topK + 1);
+            for (Entry terminal : node.terminals) {
+                select(top, terminal);
+            }
+            for (Node child : node.children.values()) {
+                for (Entry candidate : child.top) {
+                    select(top, candidate);
+                }
+            }
+            node.top = List.copyOf(top);
+        }
+    }
+
+    // Bounded insertion into a ranked list of at most topK entries
+    private void select(List<Entry> top, Entry candidate) {
+        if (top.size() >= topK && RANKING.compare(candidate, top.get(top.size() - 1)) >= 0) {
+            return;
+        }
+        if (top.contains(candidate)) {
+            return;
+        }
+
+        int at = 0;
+        while (at < top.size() && RANKING.compare(top.get(at), candidate) <= 0) {
+            at++;
+        }
+        top.add(at, candidate);
+        if (top.size() > topK) {
+            top.remove(top.size() - 1);
+        }
+    }
+
+    private static String entryKey(String type, Long id) {
+        return type + ":" + id;
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private final List<Entry> terminals = new ArrayList<>(1);
+        private List<Entry> top = List.of();
+    }
+
+    private static final class Entry {
+        private final Suggestion suggestion;
+        private final long score;
+        private final List<String> keys = new ArrayList<>();
+
+        private Entry(Suggestion suggestion, long score) {
+            this.suggestion = suggestion;
+            this.score = score;
+        }
+    }
+}
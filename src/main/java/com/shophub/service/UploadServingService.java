@@ -0,0 +1,288 @@
+package com.shophub.service;
+
+import com.shophub.cache.BoundedTtlCache;
+import com.shophub.dto.UploadServingStats;
+import com.shophub.exception.ResourceNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Serves files under the uploads directory for {@code GET /uploads/**}.
+ * <ul>
+ *   <li>UUID- and content-hash-named files (and their resized variants) never change, so they are cached
+ *       by browsers for a year as immutable; anything else must revalidate.</li>
+ *   <li>Strong ETags are a hash of the content, computed once per file version.</li>
+ *   <li>If-None-Match / If-Modified-Since answer 304; a single Range answers 206.</li>
+ *   <li>Bodies go out through Tomcat sendfile when the connector supports it,
+ *       otherwise through FileChannel.transferTo, never through a heap buffer.</li>
+ * </ul>
+ */
+@Service
+public class UploadServingService {
+
+    private static final int MAX_WIDTH = 4096;
+
+    // <uuid>.<ext> or a content-hash blob <sha256>.<ext>, or a resized variant <name>.w<width>.<ext>
+    private static final Pattern IMMUTABLE_NAME = Pattern.compile(
+            "([0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}|[0-9a-f]{64})(\\.w\\d+)?\\.[a-z0-9]+");
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+
+    // Tomcat's request attributes for handing the body to the connector (see Tomcat's DefaultServlet)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final Path root;
+    private final ImageDerivativeService derivativeService;
+    private final long sendfileMinBytes;
+    private final BoundedTtlCache<String, String> etags;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder partial = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder notFound = new LongAdder();
+    private final LongAdder rangeNotSatisfiable = new LongAdder();
+    private final LongAdder sendfile = new LongAdder();
+    private final LongAdder bytesServed = new LongAdder();
+
+    public UploadServingService(@Value("${image.storage.local-root:uploads}") String root,
+                                ImageDerivativeService derivativeService,
+                                @Value("${uploads.serving.sendfile-min-bytes:49152}") long sendfileMinBytes,
+                                @Value("${uploads.serving.etag-cache-size:10000}") int etagCacheSize) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.derivativeService = derivativeService;
+        this.sendfileMinBytes = sendfileMinBytes;
+        this.etags = new BoundedTtlCache<>("uploads.etags", etagCacheSize, TimeUnit.HOURS.toMillis(24));
+    }
+
+    /**
+     * @param relativePath decoded path below /uploads/
+     * @param width        the ?w= parameter; selects the closest resized variant
+     */
+    public void serve(String relativePath, String width,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        requests.increment();
+
+        Path original = resolve(relativePath);
+        Integer requestedWidth = parseWidth(width);
+        Path file = requestedWidth == null ? original : derivativeService.resolve(original, requestedWidth);
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            // Deleted between resolving and reading
+            notFound.increment();
+            throw new ResourceNotFoundException("File not found");
+        }
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = etag(file, length, lastModified);
+
+        // A width that fell back to the original may get its variant later, unless the original already fits it
+        boolean immutable = isImmutableName(file) && (requestedWidth == null || !file.equals(original)
+                || derivativeService.isOriginalFinal(original, requestedWidth));
+        response.setHeader(HttpHeaders.CACHE_CONTROL, (immutable ? IMMUTABLE : REVALIDATE).getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        // Sets ETag/Last-Modified and answers 304 (or 412 for failed If-Match) when it applies
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            if (response.getStatus() == HttpServletResponse.SC_NOT_MODIFIED) {
+                notModified.increment();
+            }
+            return;
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+        long start = 0;
+        long end = length - 1;
+        HttpRange range = requestedRange(request, etag, lastModified);
+        if (range != null) {
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length);
+            if (start >= length || start > end) {
+                rangeNotSatisfiable.increment();
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            partial.increment();
+        } else {
+            ok.increment();
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        if (count >= sendfileMinBytes && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // The connector writes the file once the response is committed, straight from the page cache
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            sendfile.increment();
+            bytesServed.add(count);
+            return;
+        }
+
+        transfer(file, start, count, response);
+    }
+
+    public UploadServingStats stats() {
+        return new UploadServingStats(
+                requests.sum(),
+                ok.sum(),
+                partial.sum(),
+                notModified.sum(),
+                notFound.sum(),
+                rangeNotSatisfiable.sum(),
+                sendfile.sum(),
+                bytesServed.sum(),
+                etags.stats()
+        );
+    }
+
+    private Path resolve(String relativePath) {
+        if (relativePath == null || relativePath.isEmpty() || relativePath.contains("\\") || relativePath.indexOf('\0') >= 0) {
+            notFound.increment();
+            throw new ResourceNotFoundException("File not found");
+        }
+        for (String segment : relativePath.split("/")) {
+            // Also hides in-progress variants (.variant-*) and other dot files
+            if (segment.isEmpty() || segment.startsWith(".")) {
+                notFound.increment();
+                throw new ResourceNotFoundException("File not found");
+            }
+        }
+
+        Path file = root.resolve(relativePath).normalize();
+        if (!file.startsWith(root) || !Files.isRegularFile(file)) {
+            notFound.increment();
+            throw new ResourceNotFoundException("File not found");
+        }
+        return file;
+    }
+
+    // Only a single range is honoured; multiple ranges get the whole file, which RFC 9110 allows
+    private HttpRange requestedRange(HttpServletRequest request, String etag, long lastModified) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !ifRangeMatches(request, etag, lastModified)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private void transfer(Path file, long start, long count, HttpServletResponse response) throws IOException {
+        long written = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            while (written < count) {
+                long n = channel.transferTo(start + written, count - written, out);
+                if (n <= 0) {
+                    break;
+                }
+                written += n;
+            }
+        } finally {
+            bytesServed.add(written);
+        }
+    }
+
+    // Keyed by size and mtime as well, so a rewritten file gets a new tag without explicit invalidation
+    private String etag(Path file, long length, long lastModified) {
+        String key = file + "|" + length + "|" + lastModified;
+        return etags.getOrLoad(key, k -> hash(file));
+    }
+
+    private static String hash(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[16384];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                sha256.update(buffer, 0, read);
+            }
+            byte[] digest = sha256.digest();
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22) + "\"";
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static boolean isImmutableName(Path file) {
+        return IMMUTABLE_NAME.matcher(file.getFileName().toString().toLowerCase(Locale.ROOT)).matches();
+    }
+
+    private static Integer parseWidth(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            int width = Integer.parseInt(value.trim());
+            return width > 0 && width <= MAX_WIDTH ? width : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -9,10 +9,12 @@ import com.shophub.exception.UnauthorizedException;
 import com.shophub.model.Role;
 import com.shophub.model.User;
 import com.shophub.repository.UserRepository;
+import com.shophub.security.AuthenticatedPrincipalCache;
 import com.shophub.security.JwtTokenProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 
@@ -34,6 +36,10 @@ public class UserService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private AuthenticatedPrincipalCache principalCache;
+
+    @Transactional
     public AuthResponse register(RegisterRequest request) {
         // Check if email already exists
         if (userRepository.existsByEmail(request.getEmail())) {
@@ -62,7 +68,7 @@ public class UserService {
             firstName = "there";
         }
 
-        // Send welcome email (after user is successfully saved)
+        // Queue welcome email; it commits together with the user row
         emailService.sendWelcomeEmail(savedUser.getEmail(), firstName);
 
         String accessToken =
@@ -124,10 +130,10 @@ public class UserService {
     }
 
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new ResourceNotFoundException("User not found");
-        }
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
         userRepository.deleteById(id);
+        principalCache.invalidate(user.getEmail());
     }
 
 
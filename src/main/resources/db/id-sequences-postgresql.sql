@@ -0,0 +1,261 @@
+-- Runs on every startup before Hibernate (spring.sql.init), so every statement
+-- here must be idempotent. Schema for new tables and columns lives here too:
+-- the prod profile uses ddl-auto=validate and would refuse to start without it.
+
+-- ===========================================
+-- ID SEQUENCES (pooled, allocationSize = 50)
+-- ===========================================
+-- Entities on the hot insert paths use sequence ids so Hibernate can batch
+-- their inserts. This script creates each sequence (INCREMENT BY must match
+-- the entity's allocationSize) and moves it past the highest id already in
+-- the table, so rows created under the old IDENTITY ids are never reused.
+--
+-- Idempotent: runs on every startup (before Hibernate validates the schema)
+-- and never moves a sequence backwards. Tables that do not exist yet are
+-- skipped; Hibernate creates them and the fresh sequence starts at 1.
+DO $$
+DECLARE
+    t record;
+BEGIN
+    FOR t IN SELECT * FROM (VALUES
+            ('orders', 'orders_seq'),
+            ('order_items', 'order_items_seq'),
+            ('products', 'products_seq'),
+            ('reviews', 'reviews_seq'),
+            ('admin_audit_logs', 'admin_audit_logs_seq'),
+            ('refresh_tokens', 'refresh_tokens_seq'),
+            ('password_reset_token', 'password_reset_token_seq'),
+            ('admin_action_tokens', 'admin_action_tokens_seq'),
+            ('email_outbox', 'email_outbox_seq')
+        ) AS v(table_name, sequence_name)
+    LOOP
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I START WITH 1 INCREMENT BY 50', t.sequence_name);
+
+        IF to_regclass(t.table_name) IS NOT NULL THEN
+            EXECUTE format(
+                'SELECT setval(%L, GREATEST((SELECT COALESCE(MAX(id), 0) FROM %I), (SELECT last_value FROM %I), 1))',
+                t.sequence_name, t.table_name, t.sequence_name
+            );
+        END IF;
+    END LOOP;
+END
+$$@@
+
+-- ===========================================
+-- ONE-TIME DATA MIGRATIONS
+-- ===========================================
+-- Data fixes that scan whole tables run once, recorded by name here, instead
+-- of on every startup. Not mapped by any entity, so validate ignores it.
+CREATE TABLE IF NOT EXISTS schema_migrations (
+    name       varchar(100) PRIMARY KEY,
+    applied_at timestamp    NOT NULL DEFAULT now()
+)@@
+
+-- Statuses are written lowercase (OrderStatus.value()); rows from before that
+-- may not be. Lowercasing them lets the admin order search compare status
+-- exactly and keep using idx_orders_status_created_id. A database without an
+-- orders table yet has no legacy rows, so it is marked done as well.
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM schema_migrations WHERE name = 'orders-status-lowercase') THEN
+        IF to_regclass('orders') IS NOT NULL THEN
+            UPDATE orders SET status = LOWER(status) WHERE status <> LOWER(status);
+        END IF;
+        INSERT INTO schema_migrations (name) VALUES ('orders-status-lowercase') ON CONFLICT DO NOTHING;
+    END IF;
+END
+$$@@
+
+-- ===========================================
+-- INDEXES ON EXISTING TABLES
+-- ===========================================
+-- The @Index entries on entities whose tables predate this script. Hibernate
+-- only creates them under ddl-auto=update, so prod gets them from here.
+-- Tables that do not exist yet are skipped; Hibernate creates them with their
+-- indexes. Building an index on a large table blocks writes to it while it
+-- runs, so that first startup takes longer; later startups find them present.
+
+-- Catalog pages: keyset on (sort key, id) over active products, plus the
+-- category and badge listing filters.
+DO $$
+BEGIN
+    IF to_regclass('products') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_products_active_id ON products (active, id);
+        CREATE INDEX IF NOT EXISTS idx_products_active_price ON products (active, price, id);
+        CREATE INDEX IF NOT EXISTS idx_products_active_name ON products (active, name, id);
+        CREATE INDEX IF NOT EXISTS idx_products_category ON products (category);
+        CREATE INDEX IF NOT EXISTS idx_products_badge ON products (badge);
+    END IF;
+END
+$$@@
+
+-- Review eligibility and purchase counts: one user's orders by status, one
+-- product's order lines, and an order's lines.
+DO $$
+BEGIN
+    IF to_regclass('orders') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_orders_user_status ON orders (user_id, status);
+    END IF;
+    IF to_regclass('order_items') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_order_items_product_order ON order_items (product_id, order_id);
+        CREATE INDEX IF NOT EXISTS idx_order_items_order ON order_items (order_id);
+    END IF;
+END
+$$@@
+
+-- Admin order search: keyset on (created_at, id), optionally narrowed by one
+-- equality filter. The email index also serves the keyset order history.
+DO $$
+BEGIN
+    IF to_regclass('orders') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_orders_created_id ON orders (created_at, id);
+        CREATE INDEX IF NOT EXISTS idx_orders_status_created_id ON orders (status, created_at, id);
+        CREATE INDEX IF NOT EXISTS idx_orders_email_created_id ON orders (user_email, created_at, id);
+        CREATE INDEX IF NOT EXISTS idx_orders_district_created_id ON orders (district, created_at, id);
+    END IF;
+END
+$$@@
+
+-- Review feeds: one product's or one user's reviews, keyset on (created_at, id).
+DO $$
+BEGIN
+    IF to_regclass('reviews') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_reviews_product_created ON reviews (product_id, created_at, id);
+        CREATE INDEX IF NOT EXISTS idx_reviews_user_created ON reviews (user_id, created_at, id);
+    END IF;
+END
+$$@@
+
+-- ===========================================
+-- RATING AGGREGATES
+-- ===========================================
+-- product_rating_stats and the denormalized products.review_count /
+-- products.average_rating columns (ProductRatingService). Created here
+-- because the prod profile only validates the schema.
+CREATE TABLE IF NOT EXISTS product_rating_stats (
+    product_id     bigint PRIMARY KEY,
+    review_count   bigint NOT NULL DEFAULT 0,
+    rating_sum     bigint NOT NULL DEFAULT 0,
+    star_1         bigint NOT NULL DEFAULT 0,
+    star_2         bigint NOT NULL DEFAULT 0,
+    star_3         bigint NOT NULL DEFAULT 0,
+    star_4         bigint NOT NULL DEFAULT 0,
+    star_5         bigint NOT NULL DEFAULT 0,
+    purchase_count bigint NOT NULL DEFAULT 0
+)@@
+
+ALTER TABLE IF EXISTS products ADD COLUMN IF NOT EXISTS review_count integer DEFAULT 0@@
+
+ALTER TABLE IF EXISTS products ADD COLUMN IF NOT EXISTS average_rating double precision DEFAULT 0@@
+
+-- Builds the aggregate of every product that has none yet from its reviews
+-- and delivered order lines, and copies it onto the product row. Products
+-- that already have one are left alone, so this is a no-op after the first run.
+DO $$
+BEGIN
+    IF to_regclass('products') IS NOT NULL
+            AND to_regclass('reviews') IS NOT NULL
+            AND to_regclass('orders') IS NOT NULL
+            AND to_regclass('order_items') IS NOT NULL THEN
+        WITH inserted AS (
+            INSERT INTO product_rating_stats (product_id, review_count, rating_sum,
+                                              star_1, star_2, star_3, star_4, star_5, purchase_count)
+            SELECT p.id,
+                   COALESCE(r.review_count, 0),
+                   COALESCE(r.rating_sum, 0),
+                   COALESCE(r.star_1, 0),
+                   COALESCE(r.star_2, 0),
+                   COALESCE(r.star_3, 0),
+                   COALESCE(r.star_4, 0),
+                   COALESCE(r.star_5, 0),
+                   COALESCE(d.purchase_count, 0)
+            FROM products p
+            LEFT JOIN (
+                SELECT product_id,
+                       COUNT(*) AS review_count,
+                       SUM(rating) AS rating_sum,
+                       COUNT(*) FILTER (WHERE rating = 1) AS star_1,
+                       COUNT(*) FILTER (WHERE rating = 2) AS star_2,
+                       COUNT(*) FILTER (WHERE rating = 3) AS star_3,
+                       COUNT(*) FILTER (WHERE rating = 4) AS star_4,
+                       COUNT(*) FILTER (WHERE rating = 5) AS star_5
+                FROM reviews
+                WHERE rating BETWEEN 1 AND 5
+                GROUP BY product_id
+            ) r ON r.product_id = p.id
+            LEFT JOIN (
+                SELECT oi.product_id, COUNT(*) AS purchase_count
+                FROM order_items oi
+                JOIN orders o ON o.id = oi.order_id
+                WHERE LOWER(o.status) = 'delivered'
+                GROUP BY oi.product_id
+            ) d ON d.product_id = p.id
+            WHERE NOT EXISTS (SELECT 1 FROM product_rating_stats s WHERE s.product_id = p.id)
+            ON CONFLICT (product_id) DO NOTHING
+            RETURNING product_id, review_count, rating_sum
+        )
+        UPDATE products p
+        SET review_count = i.review_count,
+            average_rating = CASE WHEN i.review_count = 0 THEN 0
+                                  ELSE i.rating_sum::double precision / i.review_count END
+        FROM inserted i
+        WHERE p.id = i.product_id;
+    END IF;
+END
+$$@@
+
+-- ===========================================
+-- EMAIL OUTBOX
+-- ===========================================
+-- Mail queued in the sender's transaction (EmailOutboxMessage), delivered by EmailOutboxWorker
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id              bigint PRIMARY KEY,
+    template        varchar(64) NOT NULL,
+    recipient       varchar(320) NOT NULL,
+    subject         varchar(500) NOT NULL,
+    html_content    text NOT NULL,
+    status          varchar(16) NOT NULL,
+    attempts        integer NOT NULL DEFAULT 0,
+    next_attempt_at timestamp(6) NOT NULL,
+    last_error      varchar(1000),
+    created_at      timestamp(6) NOT NULL,
+    sent_at         timestamp(6)
+)@@
+
+CREATE INDEX IF NOT EXISTS idx_email_outbox_status_next ON email_outbox (status, next_attempt_at)@@
+
+-- ===========================================
+-- PENDING ASSET DELETIONS
+-- ===========================================
+-- Replaced/orphaned product images waiting for AssetGarbageCollector
+CREATE TABLE IF NOT EXISTS pending_asset_deletions (
+    public_id       varchar(255) PRIMARY KEY,
+    attempts        integer NOT NULL DEFAULT 0,
+    next_attempt_at timestamp(6) NOT NULL,
+    last_error      varchar(1000),
+    created_at      timestamp(6) NOT NULL
+)@@
+
+CREATE INDEX IF NOT EXISTS idx_pending_asset_deletions_next ON pending_asset_deletions (next_attempt_at)@@
+
+-- ===========================================
+-- CONTENT-ADDRESSED IMAGE BLOBS
+-- ===========================================
+-- Files under uploads/blobs/ (StoredBlob) and the owners referencing them (StoredBlobRef), see BlobStore
+CREATE TABLE IF NOT EXISTS stored_blobs (
+    hash        varchar(64) PRIMARY KEY,
+    extension   varchar(10) NOT NULL,
+    size        bigint NOT NULL,
+    ref_count   integer NOT NULL DEFAULT 0,
+    created_at  timestamp(6) NOT NULL,
+    released_at timestamp(6)
+)@@
+
+CREATE INDEX IF NOT EXISTS idx_stored_blobs_released ON stored_blobs (ref_count, released_at)@@
+
+CREATE TABLE IF NOT EXISTS stored_blob_refs (
+    owner      varchar(255) NOT NULL,
+    blob_hash  varchar(64) NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    PRIMARY KEY (owner, blob_hash)
+)@@
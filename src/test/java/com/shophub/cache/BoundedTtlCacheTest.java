@@ -0,0 +1,101 @@
+package com.shophub.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedTtlCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondMaxSize() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>("test", 2, 60_000);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.get("a");
+        cache.put("c", "C");
+
+        assertThat(cache.get("a")).isEqualTo("A");
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isEqualTo("C");
+        assertThat(cache.stats().getEvictions()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void expiresEntriesAfterTtl() throws InterruptedException {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>("test", 10, 20);
+        cache.put("a", "A");
+        assertThat(cache.get("a")).isEqualTo("A");
+
+        Thread.sleep(50);
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.stats().getExpirations()).isEqualTo(1);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void putNeverExtendsPastTtl() throws InterruptedException {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>("test", 10, 20);
+        cache.put("a", "A", Long.MAX_VALUE);
+
+        Thread.sleep(50);
+
+        assertThat(cache.get("a")).isNull();
+    }
+
+    @Test
+    void getOrLoadCachesTheLoadedValue() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>("test", 10, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.getOrLoad("a", k -> "A" + loads.incrementAndGet())).isEqualTo("A1");
+        assertThat(cache.getOrLoad("a", k -> "A" + loads.incrementAndGet())).isEqualTo("A1");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void loadRacingAnInvalidationIsReturnedButNotCached() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>("test", 10, 60_000);
+
+        // The writer invalidates while the read that started before it is still loading
+        String loaded = cache.getOrLoad("a", k -> {
+            cache.invalidate("a");
+            return "stale";
+        });
+
+        assertThat(loaded).isEqualTo("stale");
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.getOrLoad("a", k -> "fresh")).isEqualTo("fresh");
+        assertThat(cache.get("a")).isEqualTo("fresh");
+    }
+
+    @Test
+    void batchLoadRacingAnInvalidationIsReturnedButNotCached() {
+        BoundedTtlCache<Long, String> cache = new BoundedTtlCache<>("test", 10, 60_000);
+        cache.put(1L, "one");
+
+        Map<Long, String> found = cache.getAllOrLoad(List.of(1L, 2L, 3L), missing -> {
+            assertThat(missing).containsExactly(2L, 3L);
+            cache.invalidateAll();
+            return Map.of(2L, "two", 3L, "three");
+        });
+
+        assertThat(found).containsOnly(Map.entry(1L, "one"), Map.entry(2L, "two"), Map.entry(3L, "three"));
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void batchLoadCachesMissesWhenNothingRaced() {
+        BoundedTtlCache<Long, String> cache = new BoundedTtlCache<>("test", 10, 60_000);
+
+        cache.getAllOrLoad(List.of(1L, 2L), missing -> Map.of(1L, "one"));
+
+        assertThat(cache.get(1L)).isEqualTo("one");
+        assertThat(cache.get(2L)).isNull();
+    }
+}
@@ -0,0 +1,56 @@
+package com.shophub.dto;
+
+import com.shophub.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest {
+
+    @Test
+    void roundTripsSortValueAndId() {
+        String encoded = new KeysetCursor("PRICE_ASC", "19.99", 42L).encode();
+
+        assertThat(KeysetCursor.decode(encoded, "PRICE_ASC"))
+                .isEqualTo(new KeysetCursor("PRICE_ASC", "19.99", 42L));
+    }
+
+    @Test
+    void valuesMayContainTheSeparator() {
+        String encoded = new KeysetCursor("NAME_ASC", "Salt | Pepper", 7L).encode();
+
+        assertThat(KeysetCursor.decode(encoded, "NAME_ASC").getValue()).isEqualTo("Salt | Pepper");
+    }
+
+    @Test
+    void nullValueRoundTripsAsNull() {
+        String encoded = new KeysetCursor("NEWEST", null, 3L).encode();
+
+        KeysetCursor decoded = KeysetCursor.decode(encoded, "NEWEST");
+        assertThat(decoded.getValue()).isNull();
+        assertThat(decoded.getId()).isEqualTo(3L);
+    }
+
+    @Test
+    void blankCursorMeansFirstPage() {
+        assertThat(KeysetCursor.decode(null, "NEWEST")).isNull();
+        assertThat(KeysetCursor.decode(" ", "NEWEST")).isNull();
+    }
+
+    @Test
+    void rejectsCursorIssuedForAnotherSort() {
+        String encoded = new KeysetCursor("PRICE_ASC", "10.0", 1L).encode();
+
+        assertThatThrownBy(() -> KeysetCursor.decode(encoded, "PRICE_DESC"))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not base64!", "NEWEST"))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(new KeysetCursor("NEWEST", null, 1L).encode() + "x", "NEWEST"))
+                .isInstanceOf(BadRequestException.class);
+    }
+}
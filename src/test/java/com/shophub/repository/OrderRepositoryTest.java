@@ -0,0 +1,169 @@
+package com.shophub.repository;
+
+import com.shophub.model.Order;
+import com.shophub.model.OrderItem;
+import com.shophub.model.Product;
+import com.shophub.model.Role;
+import com.shophub.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+class OrderRepositoryTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User alice;
+    private User bob;
+    private Product lamp;
+    private Product mug;
+
+    @BeforeEach
+    void setUp() {
+        alice = user("alice@example.com");
+        bob = user("bob@example.com");
+        lamp = product("Lamp");
+        mug = product("Mug");
+    }
+
+    @Test
+    void onlyDeliveredOrdersMakeAVerifiedPurchase() {
+        order(alice, "shipped", lamp, 1);
+        order(bob, "delivered", lamp, 1);
+
+        assertThat(orderRepository.hasUserPurchasedProduct(alice.getId(), lamp.getId())).isFalse();
+        assertThat(orderRepository.hasUserPurchasedProduct(bob.getId(), lamp.getId())).isTrue();
+        assertThat(orderRepository.hasUserPurchasedProduct(bob.getId(), mug.getId())).isFalse();
+    }
+
+    @Test
+    void legacyMixedCaseStatusesStillCount() {
+        order(alice, "Delivered", lamp, 1);
+        order(bob, "DELIVERED", lamp, 2);
+        order(bob, "Cancelled", mug, 5);
+
+        assertThat(orderRepository.hasUserPurchasedProduct(alice.getId(), lamp.getId())).isTrue();
+        assertThat(orderRepository.countDeliveredItemsByProduct(lamp.getId())).isEqualTo(2);
+        assertThat(unitsByProduct()).doesNotContainKey(mug.getId());
+    }
+
+    @Test
+    void countsDeliveredLinesPerProduct() {
+        order(alice, "delivered", lamp, 3);
+        order(bob, "delivered", lamp, 1);
+        order(bob, "delivered", mug, 1);
+        order(bob, "pending", mug, 1);
+
+        Map<Long, Long> lines = new HashMap<>();
+        for (Object[] row : orderRepository.countDeliveredItemsByProducts(List.of(lamp.getId(), mug.getId()))) {
+            lines.put((Long) row[0], (Long) row[1]);
+        }
+
+        assertThat(lines).containsOnly(Map.entry(lamp.getId(), 2L), Map.entry(mug.getId(), 1L));
+        assertThat(orderRepository.countDeliveredItemsByProduct(mug.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void orderedUnitsExcludeCancelledOrders() {
+        order(alice, "pending", lamp, 2);
+        order(bob, "delivered", lamp, 3);
+        order(bob, "cancelled", lamp, 10);
+
+        assertThat(unitsByProduct()).containsOnly(Map.entry(lamp.getId(), 5L));
+    }
+
+    @Test
+    void eligibilityReadsOnlyOneProductsLinesNotTheWholeTable() {
+        // Other customers' history: 2000 delivered orders of one line each, spread over 20 products
+        Product[] catalog = new Product[20];
+        for (int i = 0; i < catalog.length; i++) {
+            catalog[i] = product("Filler " + i);
+        }
+        for (int i = 0; i < 2000; i++) {
+            order(bob, "delivered", catalog[i % catalog.length], 1);
+        }
+        order(alice, "delivered", lamp, 1);
+        orderRepository.flush();
+
+        // Same statement Hibernate generates for hasUserPurchasedProduct
+        String plan = jdbcTemplate.queryForObject(
+                "EXPLAIN ANALYZE SELECT COUNT(oi.id) FROM order_items oi JOIN orders o ON o.id = oi.order_id " +
+                        "WHERE o.user_id = ? AND oi.product_id = ? AND LOWER(o.status) = 'delivered'",
+                String.class, alice.getId(), lamp.getId());
+
+        assertThat(plan).containsIgnoringCase("IDX_ORDER_ITEMS_PRODUCT_ORDER");
+        long scanned = 0;
+        Matcher scanCount = Pattern.compile("scanCount: (\\d+)").matcher(plan);
+        while (scanCount.find()) {
+            scanned += Long.parseLong(scanCount.group(1));
+        }
+        assertThat(scanned).as(plan).isLessThan(10);
+        assertThat(orderRepository.hasUserPurchasedProduct(alice.getId(), lamp.getId())).isTrue();
+    }
+
+    private Map<Long, Long> unitsByProduct() {
+        Map<Long, Long> units = new HashMap<>();
+        for (Object[] row : orderRepository.sumOrderedQuantityByProduct()) {
+            units.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        return units;
+    }
+
+    private void order(User user, String status, Product product, int quantity) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setEmail(user.getEmail());
+        order.setStatus(status);
+        order.setTotal(product.getPrice() * quantity);
+
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setPrice(product.getPrice());
+        order.setItems(new ArrayList<>(List.of(item)));
+
+        orderRepository.save(order);
+    }
+
+    private User user(String email) {
+        User user = new User();
+        user.setName(email);
+        user.setEmail(email);
+        user.setPassword("secret");
+        user.setRole(Role.ROLE_CUSTOMER);
+        return userRepository.save(user);
+    }
+
+    private Product product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(10.0);
+        product.setStock(10);
+        return productRepository.save(product);
+    }
+}
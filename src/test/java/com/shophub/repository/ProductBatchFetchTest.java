@@ -0,0 +1,85 @@
+package com.shophub.repository;
+
+import com.shophub.model.Category;
+import com.shophub.model.Product;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A page of products must cost a fixed number of statements, not one per product per collection
+@DataJpaTest(showSql = false, properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class ProductBatchFetchTest {
+
+    private static final int PRODUCTS = 60;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        Category[] categories = new Category[3];
+        for (int i = 0; i < categories.length; i++) {
+            Category category = new Category();
+            category.setName("Category " + i);
+            categories[i] = categoryRepository.save(category);
+        }
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setPrice(10.0 + i);
+            product.setStock(5);
+            product.setCategoryEntity(categories[i % categories.length]);
+            product.getAdditionalImages().addAll(List.of("a" + i + ".jpg", "b" + i + ".jpg"));
+            product.getAdditionalImagePublicIds().addAll(List.of("a" + i, "b" + i));
+            productRepository.save(product);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void listingLoadsImagesAndCategoriesInBatches() {
+        List<Product> products = productRepository.findByActiveTrue();
+
+        assertThat(products).hasSize(PRODUCTS);
+        assertThat(products).allSatisfy(product -> {
+            assertThat(product.getAdditionalImages()).hasSize(2);
+            assertThat(product.getAdditionalImagePublicIds()).hasSize(2);
+            assertThat(product.getCategoryName()).startsWith("Category ");
+        });
+        // products, categories, image urls, image public ids
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void pagedListingLoadsImagesAndCategoriesInBatches() {
+        List<Product> products = productRepository.findByActiveTrue(PageRequest.of(0, 24, Sort.by(Sort.Direction.DESC, "id")));
+
+        assertThat(products).hasSize(24);
+        products.forEach(product -> product.getAdditionalImages().size());
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+    }
+}
@@ -0,0 +1,188 @@
+package com.shophub.repository;
+
+import com.shophub.model.EmailOutboxMessage;
+import com.shophub.model.Order;
+import com.shophub.model.OrderItem;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.metamodel.EntityType;
+import org.hibernate.SessionEventListener;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(showSql = false, properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session.events.auto=com.shophub.repository.SequenceIdAllocationTest$JdbcBatchCounter"
+})
+@ActiveProfiles("test")
+class SequenceIdAllocationTest {
+
+    private static final int JDBC_BATCH_SIZE = 20;
+
+    private static final Pattern SCRIPT_ENTRY = Pattern.compile("\\('(\\w+)', '(\\w+)'\\)");
+    private static final Pattern SCRIPT_INCREMENT = Pattern.compile("INCREMENT BY (\\d+)");
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void pooledSequenceHandsOutUniqueIdsWithOneCallPerBlock() {
+        List<EmailOutboxMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            EmailOutboxMessage message = new EmailOutboxMessage();
+            message.setTemplate("test");
+            message.setRecipient("user" + i + "@example.com");
+            message.setSubject("Subject");
+            message.setHtmlContent("<p>Hi</p>");
+            messages.add(message);
+        }
+
+        List<Long> ids = outboxRepository.saveAllAndFlush(messages).stream().map(EmailOutboxMessage::getId).toList();
+
+        assertThat(ids).doesNotContainNull().doesNotHaveDuplicates();
+        // 120 rows in blocks of 50 need at most four nextval calls (the pooled optimizer's first block takes two)
+        Map<String, Object> sequence = jdbcTemplate.queryForMap(
+                "SELECT INCREMENT, BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'EMAIL_OUTBOX_SEQ'");
+        long increment = ((Number) sequence.get("INCREMENT")).longValue();
+        long nextValue = ((Number) sequence.get("BASE_VALUE")).longValue();
+        assertThat(increment).isEqualTo(50);
+        assertThat((nextValue - 1) / increment).isLessThanOrEqualTo(4);
+        assertThat(ids.stream().mapToLong(Long::longValue).max().orElseThrow()).isLessThan(nextValue);
+    }
+
+    @Test
+    void orderLinesInsertInCeilOfLinesOverBatchSizeJdbcBatches() {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        for (int lines : new int[]{1, 20, 21, 45, 60}) {
+            long sequenceCalls = sequenceCalls();
+            statistics.clear();
+            JdbcBatchCounter.BATCHES.set(0);
+
+            orderRepository.saveAndFlush(order(lines));
+
+            // The order row is a batch of its own; its lines follow in batches of up to 20
+            long batches = (lines + JDBC_BATCH_SIZE - 1) / JDBC_BATCH_SIZE;
+            assertThat(statistics.getEntityInsertCount()).isEqualTo(1 + lines);
+            assertThat(JdbcBatchCounter.BATCHES.get())
+                    .as("JDBC batches for an order with %d lines", lines)
+                    .isEqualTo(1 + batches);
+            // Batches of the same insert reuse one statement; any other statements are nextval calls
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(2 + sequenceCalls() - sequenceCalls);
+            entityManager.clear();
+        }
+    }
+
+    // Prod validates the schema, so every pooled sequence must be created by the init script with a matching increment
+    @Test
+    void initScriptCreatesEverySequenceWithTheEntitysAllocationSize() throws IOException {
+        String script = new ClassPathResource("db/id-sequences-postgresql.sql").getContentAsString(StandardCharsets.UTF_8);
+
+        Map<String, String> scriptSequences = new HashMap<>();
+        Matcher entry = SCRIPT_ENTRY.matcher(script);
+        while (entry.find()) {
+            scriptSequences.put(entry.group(2), entry.group(1));
+        }
+        Matcher increment = SCRIPT_INCREMENT.matcher(script);
+        assertThat(increment.find()).isTrue();
+        int scriptIncrement = Integer.parseInt(increment.group(1));
+
+        Set<String> entitySequences = new HashSet<>();
+        for (EntityType<?> entity : entityManager.getMetamodel().getEntities()) {
+            for (Field field : entity.getJavaType().getDeclaredFields()) {
+                SequenceGenerator generator = field.getAnnotation(SequenceGenerator.class);
+                if (generator == null) {
+                    continue;
+                }
+                entitySequences.add(generator.sequenceName());
+                assertThat(generator.allocationSize())
+                        .as("allocationSize of %s", generator.sequenceName())
+                        .isEqualTo(scriptIncrement);
+                assertThat(scriptSequences.get(generator.sequenceName()))
+                        .as("table of %s in the init script", generator.sequenceName())
+                        .isEqualTo(tableName(entity.getJavaType()));
+            }
+        }
+
+        assertThat(scriptSequences.keySet()).containsExactlyInAnyOrderElementsOf(entitySequences);
+    }
+
+    // Each nextval moves the sequence by its increment (50)
+    private long sequenceCalls() {
+        Long calls = jdbcTemplate.queryForObject(
+                "SELECT SUM((BASE_VALUE - START_VALUE) / INCREMENT) FROM INFORMATION_SCHEMA.SEQUENCES " +
+                        "WHERE SEQUENCE_NAME IN ('ORDERS_SEQ', 'ORDER_ITEMS_SEQ')", Long.class);
+        return calls == null ? 0 : calls;
+    }
+
+    private static Order order(int lines) {
+        Order order = new Order();
+        order.setEmail("guest@example.com");
+        order.setStatus("pending");
+        order.setTotal(lines * 10.0);
+
+        List<OrderItem> items = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProductName("Product " + i);
+            item.setQuantity(1);
+            item.setPrice(10.0);
+            items.add(item);
+        }
+        order.setItems(items);
+        return order;
+    }
+
+    // Registered per session through hibernate.session.events.auto; counts executeBatch calls
+    public static class JdbcBatchCounter implements SessionEventListener {
+
+        static final AtomicLong BATCHES = new AtomicLong();
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            BATCHES.incrementAndGet();
+        }
+    }
+
+    private String tableName(Class<?> entityClass) {
+        EntityPersister persister = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel()
+                .getEntityDescriptor(entityClass);
+        return ((AbstractEntityPersister) persister).getTableName();
+    }
+}
@@ -0,0 +1,137 @@
+package com.shophub.security;
+
+import com.shophub.controller.PasswordResetController;
+import com.shophub.controller.UserController;
+import com.shophub.model.PasswordResetToken;
+import com.shophub.model.Role;
+import com.shophub.model.User;
+import com.shophub.repository.PasswordResetTokenRepository;
+import com.shophub.repository.UserRepository;
+import com.shophub.service.EmailService;
+import com.shophub.service.RefreshTokenService;
+import com.shophub.service.UserService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+// Every write path that changes a User row must evict it, or the JWT filter keeps authenticating the stale copy
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({AuthenticatedPrincipalCache.class, UserService.class, UserController.class, PasswordResetController.class})
+class AuthenticatedPrincipalCacheTest {
+
+    private static final String EMAIL = "alice@example.com";
+
+    @Autowired
+    private AuthenticatedPrincipalCache principalCache;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserController userController;
+
+    @Autowired
+    private PasswordResetController passwordResetController;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordResetTokenRepository tokenRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockitoBean
+    private PasswordEncoder passwordEncoder;
+
+    @MockitoBean
+    private JwtTokenProvider jwtTokenProvider;
+
+    @MockitoBean
+    private RefreshTokenService refreshTokenService;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    private User alice;
+
+    @BeforeEach
+    void setUp() {
+        when(passwordEncoder.encode(anyString())).thenAnswer(call -> "hashed:" + call.getArgument(0));
+        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+
+        alice = new User();
+        alice.setName("Alice");
+        alice.setEmail(EMAIL);
+        alice.setPassword("hashed:old");
+        alice.setRole(Role.ROLE_CUSTOMER);
+        alice = userRepository.saveAndFlush(alice);
+
+        principalCache.invalidateAll();
+        warm(EMAIL);
+    }
+
+    @Test
+    void cachedPrincipalIsReusedUntilEvicted() {
+        User first = principalCache.get(EMAIL);
+
+        assertThat(principalCache.get(EMAIL)).isSameAs(first);
+    }
+
+    @Test
+    void passwordResetEvicts() {
+        PasswordResetToken token = new PasswordResetToken();
+        token.setToken("reset-token");
+        token.setUser(userRepository.findById(alice.getId()).orElseThrow());
+        token.setExpiryDate(LocalDateTime.now().plusMinutes(30));
+        tokenRepository.saveAndFlush(token);
+
+        passwordResetController.resetPassword("reset-token", "new");
+        entityManager.flush();
+
+        assertThat(principalCache.get(EMAIL).getPassword()).isEqualTo("hashed:new");
+    }
+
+    @Test
+    void deleteEvicts() {
+        userService.deleteUser(alice.getId());
+        entityManager.flush();
+
+        assertThat(principalCache.get(EMAIL)).isNull();
+    }
+
+    @Test
+    void profileUpdateEvictsTheOldAndTheNewEmail() {
+        userController.updateProfile(
+                Map.of("name", "Alice B", "email", "alice@new.example.com", "currentPassword", "old", "newPassword", "new"),
+                new UsernamePasswordAuthenticationToken(principalCache.get(EMAIL), null));
+        entityManager.flush();
+
+        assertThat(principalCache.get(EMAIL)).isNull();
+        User updated = principalCache.get("alice@new.example.com");
+        assertThat(updated.getName()).isEqualTo("Alice B");
+        assertThat(updated.getPassword()).isEqualTo("hashed:new");
+    }
+
+    // Loads the entry, then detaches it, so a later read only sees new data if the entry was evicted
+    private void warm(String email) {
+        principalCache.get(email);
+        entityManager.clear();
+    }
+}
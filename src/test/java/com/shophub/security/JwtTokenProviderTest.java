@@ -0,0 +1,89 @@
+package com.shophub.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    private static JwtTokenProvider provider(long accessTokenExpiration) {
+        return provider(SECRET, accessTokenExpiration);
+    }
+
+    private static JwtTokenProvider provider(String secret, long accessTokenExpiration) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", secret);
+        ReflectionTestUtils.setField(provider, "accessTokenExpiration", accessTokenExpiration);
+        ReflectionTestUtils.setField(provider, "refreshTokenExpiration", 60_000L);
+        ReflectionTestUtils.setField(provider, "verifiedCacheSize", 100);
+        provider.init();
+        return provider;
+    }
+
+    @Test
+    void parsesEveryClaimOnce() {
+        JwtTokenProvider provider = provider(60_000);
+        String token = provider.generateAccessToken("admin@example.com", "ROLE_ADMIN");
+
+        JwtClaims claims = provider.parseToken(token);
+
+        assertThat(claims.getEmail()).isEqualTo("admin@example.com");
+        assertThat(claims.getRole()).isEqualTo("ROLE_ADMIN");
+        assertThat(claims.isRefreshToken()).isFalse();
+        assertThat(claims.getExpiresAt()).isNotNull();
+        assertThat(provider.isRefreshToken(provider.generateRefreshToken("admin@example.com"))).isTrue();
+    }
+
+    @Test
+    void repeatCallsForTheSameTokenAreServedFromTheCache() {
+        JwtTokenProvider provider = provider(60_000);
+        String token = provider.generateAccessToken("user@example.com", "ROLE_USER");
+
+        JwtClaims first = provider.parseToken(token);
+        assertThat(provider.getEmailFromToken(token)).isEqualTo("user@example.com");
+        assertThat(provider.getRoleFromToken(token)).isEqualTo("ROLE_USER");
+        assertThat(provider.validateToken(token)).isTrue();
+
+        assertThat(provider.parseToken(token)).isSameAs(first);
+        assertThat(provider.verifiedTokenCacheStats().getMisses()).isEqualTo(1);
+        assertThat(provider.verifiedTokenCacheStats().getHits()).isEqualTo(4);
+    }
+
+    @Test
+    void rejectsTokensSignedWithAnotherKey() {
+        String forged = provider(SECRET.replace('0', 'x'), 60_000).generateAccessToken("admin@example.com", "ROLE_ADMIN");
+
+        JwtTokenProvider provider = provider(60_000);
+
+        assertThatThrownBy(() -> provider.parseToken(forged)).isInstanceOf(JwtException.class);
+        assertThat(provider.validateToken(forged)).isFalse();
+        assertThat(provider.validateToken("not.a.jwt")).isFalse();
+        assertThat(provider.validateToken("")).isFalse();
+    }
+
+    @Test
+    void cachedTokenStopsVerifyingWhenItExpires() throws InterruptedException {
+        // exp is truncated to whole seconds, so 1.5s leaves the token valid for at least half a second
+        JwtTokenProvider provider = provider(1_500);
+        String token = provider.generateAccessToken("user@example.com", "ROLE_USER");
+        assertThat(provider.validateToken(token)).isTrue();
+
+        Thread.sleep(1_600);
+
+        assertThatThrownBy(() -> provider.parseToken(token)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    @Test
+    void rejectsSecretsTooShortForHs512() {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", "short");
+
+        assertThatThrownBy(provider::init).isInstanceOf(IllegalStateException.class);
+    }
+}
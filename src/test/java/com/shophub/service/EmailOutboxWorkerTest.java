@@ -0,0 +1,154 @@
+package com.shophub.service;
+
+import com.shophub.dto.MailTransportStats;
+import com.shophub.dto.OutgoingEmail;
+import com.shophub.exception.MailDeliveryException;
+import com.shophub.model.EmailOutboxMessage;
+import com.shophub.model.EmailOutboxStatus;
+import com.shophub.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmailOutboxWorkerTest {
+
+    private static final String BAD = "bad@example.com";
+
+    private final EmailOutboxRepository repository = mock(EmailOutboxRepository.class);
+    private final Set<Long> sent = new HashSet<>();
+
+    @Test
+    void rejectedBatchIsSplitUntilOnlyTheBadRecipientFails() throws InterruptedException {
+        List<EmailOutboxMessage> messages = messages("a@example.com", "b@example.com", BAD, "c@example.com", "d@example.com");
+        AtomicInteger requests = new AtomicInteger();
+        MailTransport transport = transport(requests, batch -> {
+            if (batch.stream().anyMatch(email -> email.getTo().equals(BAD))) {
+                throw new MailDeliveryException(400, "invalid email");
+            }
+        });
+
+        drain(messages, transport);
+
+        assertThat(sent).containsExactlyInAnyOrder(1L, 2L, 4L, 5L);
+        verify(repository).markFailed(eq(3L), eq(EmailOutboxStatus.PENDING), any(), anyString());
+        verify(repository, never()).markFailed(eq(1L), any(), any(), anyString());
+        // [a b X c d] rejected -> [a b] sent, [X c d] rejected -> [X] rejected, [c d] sent
+        assertThat(requests).hasValue(5);
+    }
+
+    @Test
+    void providerOutageRetriesTheWholeBatchWithoutSplitting() throws InterruptedException {
+        List<EmailOutboxMessage> messages = messages("a@example.com", "b@example.com", "c@example.com");
+        AtomicInteger requests = new AtomicInteger();
+        MailTransport transport = transport(requests, batch -> {
+            throw new MailDeliveryException(503, "unavailable");
+        });
+
+        drain(messages, transport);
+
+        assertThat(sent).isEmpty();
+        assertThat(requests).hasValue(1);
+        for (long id = 1; id <= 3; id++) {
+            verify(repository).markFailed(eq(id), eq(EmailOutboxStatus.PENDING), any(), anyString());
+        }
+    }
+
+    @Test
+    void rateLimitIsNotTreatedAsABadRecipient() throws InterruptedException {
+        List<EmailOutboxMessage> messages = messages("a@example.com", "b@example.com");
+        AtomicInteger requests = new AtomicInteger();
+        MailTransport transport = transport(requests, batch -> {
+            throw new MailDeliveryException(429, "slow down");
+        });
+
+        drain(messages, transport);
+
+        assertThat(requests).hasValue(1);
+    }
+
+    private void drain(List<EmailOutboxMessage> messages, MailTransport transport) throws InterruptedException {
+        List<Object[]> due = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        for (EmailOutboxMessage message : messages) {
+            due.add(new Object[]{message.getId(), message.getTemplate(), message.getCreatedAt()});
+            ids.add(message.getId());
+        }
+        when(repository.findDue(any(), any())).thenReturn(due);
+        when(repository.claim(anyCollection(), any(), any())).thenReturn(ids);
+        when(repository.findAllById(ids)).thenReturn(messages);
+        doAnswer(invocation -> {
+            Collection<Long> batch = invocation.getArgument(0);
+            synchronized (sent) {
+                sent.addAll(batch);
+            }
+            return batch.size();
+        }).when(repository).markSent(anyCollection(), any());
+
+        EmailOutboxWorker worker = new EmailOutboxWorker(repository, transport,
+                1, 8, 1000, 60_000, 120_000, 50, 0, Set.of());
+        worker.poll();
+        worker.shutdown();
+    }
+
+    private static MailTransport transport(AtomicInteger requests, BatchSender sender) {
+        return new MailTransport() {
+            @Override
+            public void send(String to, String subject, String htmlContent) {
+                sendBatch(List.of(new OutgoingEmail(to, subject, htmlContent)));
+            }
+
+            @Override
+            public void sendBatch(List<OutgoingEmail> messages) {
+                requests.incrementAndGet();
+                sender.send(messages);
+            }
+
+            @Override
+            public int maxBatchSize() {
+                return 100;
+            }
+
+            @Override
+            public MailTransportStats stats() {
+                return null;
+            }
+        };
+    }
+
+    private static List<EmailOutboxMessage> messages(String... recipients) {
+        List<EmailOutboxMessage> messages = new ArrayList<>();
+        for (int i = 0; i < recipients.length; i++) {
+            EmailOutboxMessage message = new EmailOutboxMessage();
+            message.setId(i + 1L);
+            message.setTemplate("order-invoice");
+            message.setRecipient(recipients[i]);
+            message.setSubject("Subject");
+            message.setHtmlContent("<p>Hi</p>");
+            message.setAttempts(1);
+            message.setCreatedAt(LocalDateTime.now());
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    private interface BatchSender {
+        void send(List<OutgoingEmail> batch);
+    }
+}
@@ -0,0 +1,203 @@
+package com.shophub.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shophub.exception.BadRequestException;
+import com.shophub.exception.ConflictException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyServiceTest {
+
+    private static final Map<String, Object> CART = Map.of("productId", 1, "quantity", 2);
+
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicInteger executions = new AtomicInteger();
+
+    private final IdempotencyService service = service(Duration.ofHours(1));
+
+    @Test
+    void retryWithTheSameKeyReplaysTheFirstResult() {
+        String first = execute(service, "alice@example.com", "key-1", CART);
+        String retry = execute(service, "alice@example.com", "key-1", CART);
+
+        assertThat(retry).isEqualTo("replayed " + idOf(first));
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void keyReusedWithADifferentBodyIsRejected() {
+        execute(service, "alice@example.com", "key-1", CART);
+
+        assertThatThrownBy(() -> execute(service, "alice@example.com", "key-1", Map.of("productId", 1, "quantity", 3)))
+                .isInstanceOf(ConflictException.class)
+                .hasMessageContaining("different request");
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void sameKeyFromAnotherCallerRunsSeparately() {
+        execute(service, "alice@example.com", "key-1", CART);
+        execute(service, "bob@example.com", "key-1", CART);
+
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void guestsAreScopedByTheirEmail() {
+        assertThat(IdempotencyService.guestScope("guest-checkout", " Alice@Example.com"))
+                .isEqualTo(IdempotencyService.guestScope("guest-checkout", "alice@example.com"))
+                .isNotEqualTo(IdempotencyService.guestScope("guest-checkout", "bob@example.com"));
+
+        execute(service, IdempotencyService.guestScope("guest-checkout", "alice@example.com"), "key-1", CART);
+        execute(service, IdempotencyService.guestScope("guest-checkout", "bob@example.com"), "key-1", CART);
+
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void concurrentRetryWaitsForTheRunningExecution() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = pool.submit(() -> service.execute("alice@example.com", "key-1", CART,
+                    () -> {
+                        started.countDown();
+                        await(release);
+                        return create();
+                    },
+                    IdempotencyServiceTest::idOf, id -> "replayed " + id));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // A different body under the running key is rejected straight away
+            assertThatThrownBy(() -> execute(service, "alice@example.com", "key-1", Map.of("productId", 9)))
+                    .isInstanceOf(ConflictException.class);
+
+            Future<String> retry = pool.submit(() -> execute(service, "alice@example.com", "key-1", CART));
+            release.countDown();
+
+            String created = first.get(5, TimeUnit.SECONDS);
+            assertThat(retry.get(5, TimeUnit.SECONDS)).isEqualTo("replayed " + idOf(created));
+            assertThat(executions).hasValue(1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void coalescedRetrySeesTheFailureAndTheKeyCanBeRetriedAfterwards() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> failing = pool.submit(() -> execute(service, "alice@example.com", "key-1", CART, () -> {
+                started.countDown();
+                await(release);
+                throw new BadRequestException("Insufficient stock");
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<String> retry = pool.submit(() -> execute(service, "alice@example.com", "key-1", CART));
+            // Give the retry time to join the running execution instead of starting its own
+            Thread.sleep(200);
+            release.countDown();
+
+            assertThatThrownBy(() -> failing.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(BadRequestException.class);
+            assertThatThrownBy(() -> retry.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(BadRequestException.class);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        String created = execute(service, "alice@example.com", "key-1", CART);
+        assertThat(created).startsWith("created ");
+    }
+
+    @Test
+    void retryGivesUpWithAConflictWhenTheRunningExecutionIsSlow() throws Exception {
+        IdempotencyService impatient = new IdempotencyService(new ObjectMapper(), 100, Duration.ofHours(1), 50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(
+                () -> execute(impatient, "alice@example.com", "key-1", CART, () -> {
+                    started.countDown();
+                    await(release);
+                    return create();
+                }));
+        try {
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThatThrownBy(() -> execute(impatient, "alice@example.com", "key-1", CART))
+                    .isInstanceOf(ConflictException.class)
+                    .hasMessageContaining("still being processed");
+        } finally {
+            release.countDown();
+        }
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).startsWith("created ");
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void keyRunsAgainOnceItsTtlHasExpired() throws InterruptedException {
+        IdempotencyService shortLived = service(Duration.ofMillis(100));
+
+        String first = execute(shortLived, "alice@example.com", "key-1", CART);
+        assertThat(execute(shortLived, "alice@example.com", "key-1", CART)).isEqualTo("replayed " + idOf(first));
+
+        Thread.sleep(200);
+
+        assertThat(execute(shortLived, "alice@example.com", "key-1", CART)).startsWith("created ");
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void requestsWithoutAKeyAlwaysRun() {
+        execute(service, "alice@example.com", null, CART);
+        execute(service, "alice@example.com", null, CART);
+
+        assertThat(executions).hasValue(2);
+        assertThatThrownBy(() -> execute(service, "alice@example.com", " ", CART))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    private static IdempotencyService service(Duration ttl) {
+        return new IdempotencyService(new ObjectMapper(), 100, ttl, 5_000);
+    }
+
+    private String execute(IdempotencyService target, String scope, String key, Object request) {
+        return execute(target, scope, key, request, this::create);
+    }
+
+    private String execute(IdempotencyService target, String scope, String key, Object request, Supplier<String> action) {
+        return target.execute(scope, key, request, action, IdempotencyServiceTest::idOf, id -> "replayed " + id);
+    }
+
+    private String create() {
+        executions.incrementAndGet();
+        return "created " + ids.incrementAndGet();
+    }
+
+    private static Long idOf(String result) {
+        return Long.parseLong(result.substring(result.lastIndexOf(' ') + 1));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.shophub.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageDerivativeServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private ImageDerivativeService service = new ImageDerivativeService(1, 10, 40_000_000L, 10_000L, 100);
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        service.shutdown();
+    }
+
+    @Test
+    void servesTheSmallestVariantCoveringTheRequest() throws IOException {
+        Path original = image("photo.jpg", 1200, 800, false);
+
+        Path served = service.resolve(original, 300);
+
+        assertThat(served.getFileName().toString()).isEqualTo("photo.w480.jpg");
+        assertThat(widthOf(served)).isEqualTo(480);
+        assertThat(service.resolve(original, 480)).isEqualTo(served);
+    }
+
+    @Test
+    void generatesEveryVariantNarrowerThanTheOriginal() throws IOException {
+        Path original = image("photo.jpg", 1200, 800, false);
+
+        service.generateAsync(original);
+        // Joins the job already in flight
+        service.resolve(original, 1024);
+
+        assertThat(files()).containsExactlyInAnyOrder(
+                "photo.jpg", "photo.w200.jpg", "photo.w480.jpg", "photo.w1024.jpg");
+        assertThat(widthOf(dir.resolve("photo.w1024.jpg"))).isEqualTo(1024);
+    }
+
+    @Test
+    void transparentOriginalsGetPngVariants() throws IOException {
+        Path original = image("logo.png", 600, 600, true);
+
+        Path served = service.resolve(original, 200);
+
+        assertThat(served.getFileName().toString()).isEqualTo("logo.w200.png");
+        assertThat(ImageIO.read(served.toFile()).getColorModel().hasAlpha()).isTrue();
+    }
+
+    @Test
+    void originalAlreadyNarrowerThanTheVariantIsServedWithoutAJob() throws IOException {
+        Path original = image("icon.jpg", 150, 150, false);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(service.resolve(original, 480)).isEqualTo(original);
+        }
+
+        assertThat(files()).containsExactly("icon.jpg");
+        assertThat(service.isOriginalFinal(original, 480)).isTrue();
+        // 200 is wider than the original too
+        assertThat(service.isOriginalFinal(original, 100)).isTrue();
+    }
+
+    @Test
+    void fallbackIsOnlyFinalWhenNoVariantCanEverExist() throws IOException {
+        Path original = image("photo.jpg", 1200, 800, false);
+
+        assertThat(service.isOriginalFinal(original, 300)).isFalse();
+        assertThat(service.isOriginalFinal(original, 2000)).isTrue();
+        assertThat(service.resolve(original, 2000)).isEqualTo(original);
+        assertThat(service.isOriginalFinal(dir.resolve("photo.webp"), 300)).isTrue();
+    }
+
+    @Test
+    void originalsOverThePixelLimitAreNeverResized() throws Exception {
+        service.shutdown();
+        service = new ImageDerivativeService(1, 10, 100_000L, 10_000L, 100);
+        Path original = image("huge.jpg", 1200, 800, false);
+
+        assertThat(service.resolve(original, 300)).isEqualTo(original);
+        assertThat(service.isOriginalFinal(original, 300)).isTrue();
+        assertThat(files()).containsExactly("huge.jpg");
+    }
+
+    @Test
+    void deleteVariantsKeepsTheOriginal() throws IOException {
+        Path original = image("photo.jpg", 1200, 800, false);
+        service.resolve(original, 1024);
+
+        service.deleteVariants(original);
+
+        assertThat(files()).containsExactly("photo.jpg");
+    }
+
+    private Path image(String name, int width, int height, boolean alpha) throws IOException {
+        BufferedImage image = new BufferedImage(width, height,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x++) {
+            image.setRGB(x, height / 2, alpha ? 0x80FF0000 : 0xFF0000);
+        }
+        Path file = dir.resolve(name);
+        ImageIO.write(image, alpha ? "png" : "jpg", file.toFile());
+        return file;
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> listing = Files.list(dir)) {
+            return listing.map(path -> path.getFileName().toString()).toList();
+        }
+    }
+
+    private static int widthOf(Path file) throws IOException {
+        return ImageIO.read(file.toFile()).getWidth();
+    }
+}
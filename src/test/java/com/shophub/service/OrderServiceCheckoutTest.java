@@ -0,0 +1,171 @@
+package com.shophub.service;
+
+import com.shophub.dto.OrderItemRequest;
+import com.shophub.dto.OrderRequest;
+import com.shophub.exception.BadRequestException;
+import com.shophub.exception.ResourceNotFoundException;
+import com.shophub.model.Order;
+import com.shophub.model.Product;
+import com.shophub.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest(showSql = false, properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import({OrderService.class, StockReservationService.class})
+@RecordApplicationEvents
+class OrderServiceCheckoutTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @MockitoSpyBean
+    private ProductRepository productRepository;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void resolvesTheWholeCartWithOneQuery() {
+        Product lamp = product("Lamp", 20.0, 5);
+        Product mug = product("Mug", 5.0, 10);
+        clearInvocations(productRepository);
+
+        Order order = orderService.createOrder(request(line(lamp, 1), line(mug, 3), line(lamp, 2)), null);
+
+        verify(productRepository, times(1)).findAllById(any());
+        verify(productRepository, never()).findById(any());
+        assertThat(order.getItems()).hasSize(3);
+        assertThat(order.getTotal()).isEqualTo(3 * 20.0 + 3 * 5.0);
+        assertThat(stockOf(lamp)).isEqualTo(2);
+        assertThat(stockOf(mug)).isEqualTo(7);
+    }
+
+    @Test
+    void checkoutStatementCountDoesNotGrowWithTheCart() {
+        List<Product> catalog = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            catalog.add(product("Product " + i, 10.0, 5));
+        }
+        // The pooled id optimizer hits each sequence twice before its first block is ready;
+        // after two warm-up checkouts both measured ones draw their ids from memory
+        checkout(request(line(catalog.get(0), 1)));
+        checkout(request(line(catalog.get(0), 1)));
+
+        long single = checkout(request(line(catalog.get(1), 1)));
+        long full = checkout(request(catalog.stream().map(product -> line(product, 1)).toArray(OrderItemRequest[]::new)));
+
+        // Stock reservation is one JdbcTemplate batch and is not counted by Hibernate
+        assertThat(full).isEqualTo(single);
+        assertThat(stockOf(catalog.get(19))).isEqualTo(4);
+        assertThat(stockOf(catalog.get(0))).isEqualTo(2);
+    }
+
+    @Test
+    void publishesSummedUnitsForTheAfterCommitListeners() {
+        Product lamp = product("Lamp", 20.0, 5);
+
+        Order order = orderService.createOrder(request(line(lamp, 1), line(lamp, 2)), null);
+
+        assertThat(events.stream(OrderPlacedEvent.class)).singleElement().satisfies(event -> {
+            assertThat(event.getOrderId()).isEqualTo(order.getId());
+            assertThat(event.getUnitsByProduct()).isEqualTo(Map.of(lamp.getId(), 3));
+        });
+    }
+
+    @Test
+    void unknownProductFailsTheCheckout() {
+        Product lamp = product("Lamp", 20.0, 5);
+        OrderItemRequest missing = new OrderItemRequest();
+        missing.setProductId(Long.MAX_VALUE);
+        missing.setQuantity(1);
+
+        assertThatThrownBy(() -> orderService.createOrder(request(line(lamp, 1), missing), null))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(events.stream(OrderPlacedEvent.class)).isEmpty();
+    }
+
+    @Test
+    void insufficientStockForTheSummedLinesFailsTheCheckout() {
+        Product lamp = product("Lamp", 20.0, 2);
+
+        assertThatThrownBy(() -> orderService.createOrder(request(line(lamp, 2), line(lamp, 1)), null))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Requested: 3");
+        assertThat(events.stream(OrderPlacedEvent.class)).isEmpty();
+    }
+
+    // Prepared statements Hibernate issued for one checkout, including the flush of its inserts
+    private long checkout(OrderRequest request) {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        orderService.createOrder(request, null);
+        entityManager.flush();
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1 + request.getItems().size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private int stockOf(Product product) {
+        return jdbcTemplate.queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class, product.getId());
+    }
+
+    private Product product(String name, double price, int stock) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(price);
+        product.setStock(stock);
+        return productRepository.saveAndFlush(product);
+    }
+
+    private static OrderItemRequest line(Product product, int quantity) {
+        OrderItemRequest line = new OrderItemRequest();
+        line.setProductId(product.getId());
+        line.setQuantity(quantity);
+        return line;
+    }
+
+    private static OrderRequest request(OrderItemRequest... lines) {
+        OrderRequest request = new OrderRequest();
+        request.setFirstName("Guest");
+        request.setLastName("Buyer");
+        request.setEmail("guest@example.com");
+        request.setItems(new ArrayList<>(List.of(lines)));
+        return request;
+    }
+}
@@ -0,0 +1,196 @@
+package com.shophub.service;
+
+import com.shophub.dto.OrderItemRequest;
+import com.shophub.dto.OrderRequest;
+import com.shophub.exception.BadRequestException;
+import com.shophub.model.Order;
+import com.shophub.model.OrderStatus;
+import com.shophub.model.Product;
+import com.shophub.repository.OrderRepository;
+import com.shophub.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// Not transactional itself, so every status change commits (or rolls back) for real
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({OrderService.class, StockReservationService.class, OrderStatusTransitionTest.AfterCommitRecorder.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderStatusTransitionTest {
+
+    private static final int STOCK = 10;
+    private static final int ORDERED = 3;
+
+    @Autowired
+    private OrderService orderService;
+
+    @MockitoSpyBean
+    private StockReservationService stockReservationService;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AfterCommitRecorder recorder;
+
+    private Product lamp;
+
+    @BeforeEach
+    void setUp() {
+        lamp = new Product();
+        lamp.setName("Lamp");
+        lamp.setPrice(20.0);
+        lamp.setStock(STOCK);
+        lamp = productRepository.save(lamp);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        recorder.events.clear();
+    }
+
+    @Test
+    void finalStatesRejectEveryOtherStatus() {
+        for (OrderStatus last : List.of(OrderStatus.DELIVERED, OrderStatus.CANCELLED)) {
+            Long id = orderIn(last);
+            clearInvocations(stockReservationService);
+            recorder.events.clear();
+
+            for (OrderStatus target : OrderStatus.values()) {
+                if (target == last) {
+                    continue;
+                }
+                assertThatThrownBy(() -> orderService.updateOrderStatus(id, target.value()))
+                        .as("%s -> %s", last, target)
+                        .isInstanceOf(BadRequestException.class)
+                        .hasMessageContaining("from " + last.value());
+            }
+
+            assertThat(statusOf(id)).isEqualTo(last.value());
+            verify(stockReservationService, never()).release(any());
+            assertThat(recorder.events).isEmpty();
+        }
+    }
+
+    @Test
+    void cancelFromEachOpenStatusReleasesStockExactlyOnce() {
+        for (OrderStatus open : List.of(OrderStatus.PENDING, OrderStatus.PROCESSING, OrderStatus.SHIPPED)) {
+            Long id = orderIn(open);
+            assertThat(stockOf(lamp)).isEqualTo(STOCK - ORDERED);
+            clearInvocations(stockReservationService);
+
+            orderService.updateOrderStatus(id, "cancelled");
+            // Repeating the status is a no-op, and a cancelled order cannot be reopened and cancelled again
+            orderService.updateOrderStatus(id, "CANCELLED");
+            assertThatThrownBy(() -> orderService.updateOrderStatus(id, "pending"))
+                    .isInstanceOf(BadRequestException.class);
+
+            verify(stockReservationService, times(1)).release(Map.of(lamp.getId(), ORDERED));
+            assertThat(stockOf(lamp)).as("stock after cancelling from %s", open).isEqualTo(STOCK);
+        }
+    }
+
+    @Test
+    void afterCommitListenersOnlySeeCommittedStatusChanges() {
+        Long id = orderIn(OrderStatus.PENDING);
+        recorder.events.clear();
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            orderService.updateOrderStatus(id, "shipped");
+            assertThat(recorder.events).as("before commit").isEmpty();
+            status.setRollbackOnly();
+        });
+        assertThat(recorder.events).as("after rollback").isEmpty();
+        assertThat(statusOf(id)).isEqualTo("pending");
+
+        transaction.executeWithoutResult(status -> {
+            orderService.updateOrderStatus(id, "shipped");
+            assertThat(recorder.events).as("before commit").isEmpty();
+        });
+        assertThat(recorder.events).singleElement().satisfies(event -> {
+            assertThat(event.getOrderId()).isEqualTo(id);
+            assertThat(event.getFrom()).isEqualTo(OrderStatus.PENDING);
+            assertThat(event.getTo()).isEqualTo(OrderStatus.SHIPPED);
+            assertThat(event.getUnitsByProduct()).isEqualTo(Map.of(lamp.getId(), ORDERED));
+        });
+    }
+
+    // Checks out ORDERED lamps, then walks the order to the given status
+    private Long orderIn(OrderStatus status) {
+        OrderItemRequest line = new OrderItemRequest();
+        line.setProductId(lamp.getId());
+        line.setQuantity(ORDERED);
+
+        OrderRequest request = new OrderRequest();
+        request.setFirstName("Guest");
+        request.setLastName("Buyer");
+        request.setEmail("guest@example.com");
+        request.setItems(new ArrayList<>(List.of(line)));
+
+        Order order = orderService.createOrder(request, null);
+        if (status != OrderStatus.PENDING) {
+            orderService.updateOrderStatus(order.getId(), status.value());
+        }
+        return order.getId();
+    }
+
+    private String statusOf(Long orderId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?", String.class, orderId);
+    }
+
+    private int stockOf(Product product) {
+        return jdbcTemplate.queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class, product.getId());
+    }
+
+    static class AfterCommitRecorder {
+
+        final List<OrderStatusChangedEvent> events = new CopyOnWriteArrayList<>();
+
+        @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+        public void onStatusChanged(OrderStatusChangedEvent event) {
+            events.add(event);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.shophub.service;
+
+import com.shophub.dto.CursorPage;
+import com.shophub.dto.ProductFilter;
+import com.shophub.dto.ProductSort;
+import com.shophub.model.Product;
+import com.shophub.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Walks every sort page by page and checks ties, null sort keys and inactive rows
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({ProductService.class, CatalogCache.class, ProductSearchIndex.class})
+class ProductPageTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @MockitoBean
+    private AssetGarbageCollector assetGarbageCollector;
+
+    @MockitoBean
+    private ImageIngestionService imageIngestionService;
+
+    @MockitoBean
+    private ProductSuggestService suggestService;
+
+    @MockitoBean
+    private ProductRatingService ratingService;
+
+    private Long cheapA;
+    private Long cheapB;
+    private Long mid;
+    private Long noPrice1;
+    private Long noPrice2;
+    private Long expensive;
+    private Long cheapC;
+
+    @BeforeEach
+    void setUp() {
+        cheapA = save("Banana", 5.0, true);
+        cheapB = save("apple", 5.0, true);
+        mid = save("Cherry", 10.0, true);
+        noPrice1 = save("Date", null, true);
+        save("Hidden", 1.0, false);
+        noPrice2 = save(null, null, true);
+        expensive = save("Elderberry", 20.0, true);
+        cheapC = save("Banana", 5.0, true);
+    }
+
+    @Test
+    void priceAscendingBreaksTiesByIdAndPutsNullsLast() {
+        assertThat(walk(ProductSort.PRICE_ASC, 2))
+                .containsExactly(cheapA, cheapB, cheapC, mid, expensive, noPrice1, noPrice2);
+    }
+
+    @Test
+    void priceDescendingBreaksTiesByIdDescendingAndPutsNullsLast() {
+        assertThat(walk(ProductSort.PRICE_DESC, 2))
+                .containsExactly(expensive, mid, cheapC, cheapB, cheapA, noPrice2, noPrice1);
+    }
+
+    @Test
+    void nameAscendingKeepsProductsWithoutName() {
+        List<Long> ids = walk(ProductSort.NAME_ASC, 3);
+
+        assertThat(ids).hasSize(7).doesNotHaveDuplicates();
+        assertThat(ids.get(ids.size() - 1)).isEqualTo(noPrice2);
+        assertThat(ids.indexOf(cheapA)).isLessThan(ids.indexOf(cheapC));
+    }
+
+    @Test
+    void newestWalksIdsDescending() {
+        assertThat(walk(ProductSort.NEWEST, 3))
+                .containsExactly(cheapC, expensive, noPrice2, noPrice1, mid, cheapB, cheapA);
+    }
+
+    @Test
+    void pageSizeMatchingTheKeyedRowsStillReachesTheNullSection() {
+        assertThat(walk(ProductSort.PRICE_ASC, 5))
+                .containsExactly(cheapA, cheapB, cheapC, mid, expensive, noPrice1, noPrice2);
+    }
+
+    private List<Long> walk(ProductSort sort, int size) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        for (int pages = 0; pages < 20; pages++) {
+            CursorPage<Product> page = productService.getProductPage(new ProductFilter(), sort, cursor, size);
+            page.getItems().forEach(product -> ids.add(product.getId()));
+            if (!page.isHasMore()) {
+                return ids;
+            }
+            assertThat(page.getItems()).hasSize(size);
+            cursor = page.getNextCursor();
+        }
+        throw new AssertionError("Pagination did not terminate: " + ids);
+    }
+
+    private Long save(String name, Double price, boolean active) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(price);
+        product.setActive(active);
+        product.setStock(10);
+        return productRepository.save(product).getId();
+    }
+}
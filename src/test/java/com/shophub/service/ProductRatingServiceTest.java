@@ -0,0 +1,246 @@
+package com.shophub.service;
+
+import com.shophub.model.Order;
+import com.shophub.model.OrderItem;
+import com.shophub.model.OrderStatus;
+import com.shophub.model.Product;
+import com.shophub.model.ProductRatingStats;
+import com.shophub.model.Review;
+import com.shophub.model.Role;
+import com.shophub.model.User;
+import com.shophub.repository.OrderRepository;
+import com.shophub.repository.ProductRatingStatsRepository;
+import com.shophub.repository.ProductRepository;
+import com.shophub.repository.ReviewRepository;
+import com.shophub.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// PostgreSQL mode for the native ON CONFLICT insert; not transactional itself, so every change commits for real
+@DataJpaTest(showSql = false, properties = "spring.datasource.url=jdbc:h2:mem:rating-stats;MODE=PostgreSQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(ProductRatingService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductRatingServiceTest {
+
+    @Autowired
+    private ProductRatingService ratingService;
+
+    @Autowired
+    private ProductRatingStatsRepository statsRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private CatalogCache catalogCache;
+
+    private Product lamp;
+    private int users;
+
+    @BeforeEach
+    void setUp() {
+        Product product = new Product();
+        product.setName("Lamp");
+        product.setPrice(20.0);
+        product.setStock(100);
+        lamp = productRepository.save(product);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        reviewRepository.deleteAll();
+        orderRepository.deleteAll();
+        statsRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void incrementalAggregateMatchesAFullRecompute() {
+        ratingService.createEmptyStats(lamp.getId());
+
+        List<Review> reviews = new ArrayList<>();
+        int[] ratings = {5, 4, 4, 1, 3, 5, 2, 5, 4, 3};
+        for (int rating : ratings) {
+            reviews.add(addReview(rating));
+        }
+        removeReview(reviews.get(1));
+        removeReview(reviews.get(3));
+        for (int i = 0; i < 4; i++) {
+            deliver(i % 2 == 0 ? 1 : 2);
+        }
+
+        ProductRatingStats incremental = statsRepository.findById(lamp.getId()).orElseThrow();
+
+        // Drop the row and let the startup backfill rebuild it from reviews and orders
+        statsRepository.deleteById(lamp.getId());
+        ratingService.backfill();
+        ProductRatingStats recomputed = statsRepository.findById(lamp.getId()).orElseThrow();
+
+        assertThat(incremental).isEqualTo(recomputed);
+        assertThat(incremental.getReviewCount()).isEqualTo(8);
+        assertThat(incremental.getStar4()).isEqualTo(2);
+        assertThat(incremental.getPurchaseCount()).isEqualTo(6);
+        assertThat(incremental.getAverageRating()).isEqualTo((5 + 4 + 3 + 5 + 2 + 5 + 4 + 3) / 8.0);
+    }
+
+    @Test
+    void firstReviewWithoutAStatsRowCountsTheExistingOnes() {
+        inTransaction(() -> {
+            reviewRepository.save(review(newUser(), 2));
+            reviewRepository.save(review(newUser(), 4));
+        });
+
+        addReview(5);
+
+        ProductRatingStats stats = statsRepository.findById(lamp.getId()).orElseThrow();
+        assertThat(stats.getReviewCount()).isEqualTo(3);
+        assertThat(stats.getRatingSum()).isEqualTo(11);
+    }
+
+    @Test
+    void concurrentFirstReviewsOfOneProductAllCount() throws Exception {
+        int threads = 8;
+        List<User> reviewers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            reviewers.add(newUser());
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (User reviewer : reviewers) {
+                pool.submit(() -> {
+                    try {
+                        start.await();
+                        inTransaction(() -> {
+                            reviewRepository.save(review(reviewer, 4));
+                            ratingService.reviewAdded(lamp.getId(), 4);
+                        });
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            pool.shutdown();
+            assertThat(pool.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(failures).isEmpty();
+        ProductRatingStats stats = statsRepository.findById(lamp.getId()).orElseThrow();
+        assertThat(stats.getReviewCount()).isEqualTo(threads);
+        assertThat(stats.getStar4()).isEqualTo(threads);
+    }
+
+    @Test
+    void createEmptyStatsKeepsAnExistingRow() {
+        addReview(5);
+
+        ratingService.createEmptyStats(lamp.getId());
+
+        assertThat(statsRepository.findById(lamp.getId()).orElseThrow().getReviewCount()).isEqualTo(1);
+    }
+
+    private Review addReview(int rating) {
+        User reviewer = newUser();
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Review saved = reviewRepository.save(review(reviewer, rating));
+            ratingService.reviewAdded(lamp.getId(), rating);
+            return saved;
+        });
+    }
+
+    private void removeReview(Review review) {
+        inTransaction(() -> {
+            reviewRepository.deleteById(review.getId());
+            ratingService.reviewRemoved(lamp.getId(), review.getRating());
+        });
+    }
+
+    // A delivered order with the given number of lines for the lamp
+    private void deliver(int lines) {
+        inTransaction(() -> {
+            Order order = new Order();
+            order.setEmail("buyer@example.com");
+            order.setStatus(OrderStatus.DELIVERED.value());
+            order.setTotal(20.0 * lines);
+            List<OrderItem> items = new ArrayList<>();
+            for (int i = 0; i < lines; i++) {
+                OrderItem item = new OrderItem();
+                item.setOrder(order);
+                item.setProduct(lamp);
+                item.setQuantity(1);
+                item.setPrice(20.0);
+                items.add(item);
+            }
+            order.setItems(items);
+            Long id = orderRepository.save(order).getId();
+
+            ratingService.onOrderStatusChanged(new OrderStatusChangedEvent(id, order.getEmail(), "Buyer",
+                    OrderStatus.SHIPPED, OrderStatus.DELIVERED, Map.of(lamp.getId(), lines), Map.of(lamp.getId(), lines)));
+        });
+    }
+
+    private Review review(User reviewer, int rating) {
+        Review review = new Review();
+        review.setProduct(lamp);
+        review.setUser(reviewer);
+        review.setUsername(reviewer.getName());
+        review.setRating(rating);
+        return review;
+    }
+
+    private User newUser() {
+        User user = new User();
+        user.setName("Reviewer " + users);
+        user.setEmail("reviewer" + users++ + "@example.com");
+        user.setPassword("secret");
+        user.setRole(Role.ROLE_CUSTOMER);
+        return userRepository.save(user);
+    }
+
+    private void inTransaction(Runnable action) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> action.run());
+    }
+}
@@ -0,0 +1,97 @@
+package com.shophub.service;
+
+import com.shophub.model.Category;
+import com.shophub.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSearchIndexTest {
+
+    private static Product product(long id, String name, String description) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription(description);
+        product.setActive(true);
+        return product;
+    }
+
+    @Test
+    void prefixMatchesRankBelowExactMatches() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.rebuild(List.of(
+                product(1, "Phone", null),
+                product(2, "Phonebook", null),
+                product(3, "Lamp", "Reading light")));
+
+        assertThat(index.search("phon")).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.search("phone")).containsExactly(1L, 2L);
+        assertThat(index.search("read")).containsExactly(3L);
+    }
+
+    @Test
+    void typosWithinTheEditBudgetStillMatch() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.rebuild(List.of(
+                product(1, "Headphones", null),
+                product(2, "Keyboard", null),
+                product(3, "Cup", null)));
+
+        assertThat(index.search("hedphones")).containsExactly(1L);
+        assertThat(index.search("keybaord")).containsExactly(2L);
+        // Terms under four characters must match exactly or by prefix
+        assertThat(index.search("cap")).isEmpty();
+    }
+
+    @Test
+    void everyQueryTermMustMatchUnlessNothingMatchesThemAll() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.rebuild(List.of(
+                product(1, "Red shirt", null),
+                product(2, "Blue shirt", null),
+                product(3, "Red mug", null)));
+
+        assertThat(index.search("red shirt")).containsExactly(1L);
+        assertThat(index.search("green shirt")).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.search("  ")).isEmpty();
+    }
+
+    @Test
+    void reindexAfterCategoryRenameReplacesTheOldTerms() {
+        Category category = new Category();
+        category.setId(10L);
+        category.setName("Kitchen");
+        Product kettle = product(1, "Kettle", null);
+        kettle.setCategoryEntity(category);
+
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.rebuild(List.of(kettle, product(2, "Sofa", null)));
+        assertThat(index.search("kitchen")).containsExactly(1L);
+
+        category.setName("Cookware");
+        index.index(kettle);
+
+        assertThat(index.search("kitchen")).isEmpty();
+        assertThat(index.search("cookware")).containsExactly(1L);
+        assertThat(index.search("kettle")).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void deactivatedOrRemovedProductsDropOut() {
+        Product lamp = product(1, "Lamp", null);
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.rebuild(List.of(lamp, product(2, "Desk lamp", null)));
+
+        lamp.setActive(false);
+        index.index(lamp);
+        assertThat(index.search("lamp")).containsExactly(2L);
+
+        index.remove(2L);
+        assertThat(index.search("lamp")).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+}
@@ -0,0 +1,153 @@
+package com.shophub.service;
+
+import com.shophub.dto.CursorPage;
+import com.shophub.dto.ReviewView;
+import com.shophub.exception.BadRequestException;
+import com.shophub.model.Product;
+import com.shophub.model.Review;
+import com.shophub.model.Role;
+import com.shophub.model.User;
+import com.shophub.repository.ProductRepository;
+import com.shophub.repository.ReviewRepository;
+import com.shophub.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Walks the review feeds page by page across timestamp ties and legacy rows without created_at
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import(ReviewService.class)
+class ReviewPageTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Product lamp;
+    private User alice;
+    private List<Long> newestFirst;
+    private Long legacy;
+
+    @BeforeEach
+    void setUp() {
+        lamp = product("Lamp");
+        Product mug = product("Mug");
+        alice = user("alice@example.com");
+        User bob = user("bob@example.com");
+
+        Long oldest = save(lamp, alice, NOON.minusDays(2));
+        Long tieLow = save(lamp, bob, NOON);
+        Long tieHigh = save(lamp, alice, NOON);
+        Long newest = save(lamp, bob, NOON.plusDays(1));
+        legacy = save(lamp, alice, null);
+        save(mug, alice, NOON.plusDays(3));
+
+        newestFirst = List.of(newest, tieHigh, tieLow, oldest);
+    }
+
+    @Test
+    void productFeedVisitsEveryDatedReviewOnceNewestFirst() {
+        for (int size = 1; size <= 5; size++) {
+            assertThat(walkProduct(size)).as("page size %d", size).isEqualTo(newestFirst);
+        }
+    }
+
+    @Test
+    void legacyReviewWithoutCreatedAtDoesNotBreakTheCursor() {
+        CursorPage<ReviewView> first = reviewService.getProductReviewPage(lamp.getId(), null, 2);
+
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(first.getNextCursor()).isNotNull();
+        assertThat(ids(first)).doesNotContain(legacy);
+
+        // Still listed by the unpaginated endpoint
+        assertThat(reviewService.getProductReviews(lamp.getId()))
+                .extracting(ReviewView::getId).contains(legacy);
+    }
+
+    @Test
+    void userFeedOnlyWalksThatUsersReviews() {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<ReviewView> page = reviewService.getUserReviewPage(alice.getId(), cursor, 1);
+            seen.addAll(ids(page));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).hasSize(3).doesNotContain(legacy);
+        assertThat(reviewRepository.findAllById(seen))
+                .allSatisfy(review -> assertThat(review.getUser().getId()).isEqualTo(alice.getId()));
+    }
+
+    @Test
+    void rejectsCursorsFromAnotherFeedSort() {
+        assertThatThrownBy(() -> reviewService.getProductReviewPage(lamp.getId(), "bm9wZXw0Mnwx", 2))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    private List<Long> walkProduct(int size) {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<ReviewView> page = reviewService.getProductReviewPage(lamp.getId(), cursor, size);
+            assertThat(page.getItems()).hasSizeLessThanOrEqualTo(size);
+            seen.addAll(ids(page));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return seen;
+    }
+
+    private static List<Long> ids(CursorPage<ReviewView> page) {
+        return page.getItems().stream().map(ReviewView::getId).toList();
+    }
+
+    private Long save(Product product, User user, LocalDateTime createdAt) {
+        Review review = new Review();
+        review.setProduct(product);
+        review.setUser(user);
+        review.setUsername(user.getName());
+        review.setRating(4);
+        review.setComment("ok");
+        review.setCreatedAt(createdAt);
+        return reviewRepository.save(review).getId();
+    }
+
+    private User user(String email) {
+        User user = new User();
+        user.setName(email);
+        user.setEmail(email);
+        user.setPassword("secret");
+        user.setRole(Role.ROLE_CUSTOMER);
+        return userRepository.save(user);
+    }
+
+    private Product product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(10.0);
+        product.setStock(10);
+        return productRepository.save(product);
+    }
+}
@@ -0,0 +1,173 @@
+package com.shophub.service;
+
+import com.shophub.exception.BadRequestException;
+import com.shophub.model.Product;
+import com.shophub.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Not transactional itself, so each reservation commits or rolls back for real
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import(StockReservationService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockReservationServiceTest {
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void reservesEveryLineInOneBatch() {
+        Long a = save(5, true);
+        Long b = save(3, true);
+
+        inTransaction(() -> stockReservationService.reserve(Map.of(a, 2, b, 3)));
+
+        assertStock(a, 3, true);
+        assertStock(b, 0, false);
+    }
+
+    @Test
+    void insufficientStockRollsBackLinesAlreadyReserved() {
+        Long a = save(5, true);
+        Long b = save(1, true);
+        Long c = save(5, true);
+
+        assertThatThrownBy(() -> inTransaction(() -> stockReservationService.reserve(Map.of(a, 2, b, 2, c, 2))))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Available: 1")
+                .hasMessageContaining("Requested: 2");
+
+        assertStock(a, 5, true);
+        assertStock(b, 1, true);
+        assertStock(c, 5, true);
+    }
+
+    @Test
+    void concurrentCheckoutsNeverOversellTheLastUnit() throws Exception {
+        Long a = save(1, true);
+        int threads = 64;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Throwable> unexpected = new CopyOnWriteArrayList<>();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int i = 0; i < threads; i++) {
+                pool.submit(() -> {
+                    try {
+                        start.await();
+                        inTransaction(() -> stockReservationService.reserve(Map.of(a, 1)));
+                        reserved.incrementAndGet();
+                    } catch (BadRequestException e) {
+                        rejected.incrementAndGet();
+                    } catch (Throwable e) {
+                        unexpected.add(e);
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            pool.shutdown();
+            assertThat(pool.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(unexpected).isEmpty();
+        assertThat(reserved.get()).isEqualTo(1);
+        assertThat(rejected.get()).isEqualTo(threads - 1);
+        assertStock(a, 0, false);
+    }
+
+    @Test
+    void inactiveProductsCannotBeReserved() {
+        Long a = save(5, false);
+
+        assertThatThrownBy(() -> inTransaction(() -> stockReservationService.reserve(Map.of(a, 1))))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("not available");
+
+        assertStock(a, 5, true);
+    }
+
+    @Test
+    void rejectsNonPositiveQuantities() {
+        Long a = save(5, true);
+
+        assertThatThrownBy(() -> inTransaction(() -> stockReservationService.reserve(Map.of(a, 0))))
+                .isInstanceOf(BadRequestException.class);
+
+        assertStock(a, 5, true);
+    }
+
+    @Test
+    void releaseGivesStockBack() {
+        Long a = save(0, true);
+
+        inTransaction(() -> stockReservationService.release(Map.of(a, 4)));
+
+        assertStock(a, 4, true);
+    }
+
+    @Test
+    void requiresTheCallersTransaction() {
+        Long a = save(5, true);
+
+        assertThatThrownBy(() -> stockReservationService.reserve(Map.of(a, 1)))
+                .isInstanceOf(IllegalTransactionStateException.class);
+    }
+
+    private void inTransaction(Runnable action) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> action.run());
+    }
+
+    private Long save(int stock, boolean active) {
+        Product product = new Product();
+        product.setName("Product");
+        product.setPrice(10.0);
+        product.setStock(stock);
+        product.setInStock(stock > 0);
+        product.setActive(active);
+        return productRepository.save(product).getId();
+    }
+
+    private void assertStock(Long id, int stock, boolean inStock) {
+        Product product = productRepository.findById(id).orElseThrow();
+        assertThat(product.getStock()).isEqualTo(stock);
+        assertThat(product.getInStock()).isEqualTo(inStock);
+    }
+}
@@ -0,0 +1,89 @@
+package com.shophub.service;
+
+import com.shophub.dto.Suggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SuggestionTrieTest {
+
+    private static Suggestion product(long id, String name) {
+        return new Suggestion("product", id, name);
+    }
+
+    private static List<Long> ids(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::getId).toList();
+    }
+
+    @Test
+    void lookupReturnsHighestScoresFirst() {
+        SuggestionTrie trie = new SuggestionTrie(3);
+        trie.put(product(1, "Phone case"), 5);
+        trie.put(product(2, "Phone charger"), 50);
+        trie.put(product(3, "Photo frame"), 20);
+        trie.put(product(4, "Pen"), 100);
+
+        assertThat(ids(trie.lookup("pho", 10))).containsExactly(2L, 3L, 1L);
+        assertThat(ids(trie.lookup("phone", 10))).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void keepsOnlyTopKPerPrefix() {
+        SuggestionTrie trie = new SuggestionTrie(2);
+        for (long id = 1; id <= 10; id++) {
+            trie.put(product(id, "Shirt " + id), id);
+        }
+
+        assertThat(ids(trie.lookup("shirt", 10))).containsExactly(10L, 9L);
+        assertThat(ids(trie.lookup("s", 1))).containsExactly(10L);
+    }
+
+    @Test
+    void equalScoresPreferShorterThenAlphabeticalText() {
+        SuggestionTrie trie = new SuggestionTrie(5);
+        trie.put(product(1, "Tea set"), 7);
+        trie.put(product(2, "Tea"), 7);
+        trie.put(product(3, "Tea cup"), 7);
+
+        assertThat(ids(trie.lookup("tea", 5))).containsExactly(2L, 3L, 1L);
+    }
+
+    @Test
+    void matchesFromEveryWordStart() {
+        SuggestionTrie trie = new SuggestionTrie(5);
+        trie.put(product(1, "Red running shoes"), 1);
+
+        assertThat(ids(trie.lookup("run", 5))).containsExactly(1L);
+        assertThat(ids(trie.lookup("running sh", 5))).containsExactly(1L);
+        assertThat(trie.lookup("unning", 5)).isEmpty();
+    }
+
+    @Test
+    void removingAnEntryPromotesTheNextBest() {
+        SuggestionTrie trie = new SuggestionTrie(2);
+        trie.put(product(1, "Lamp"), 30);
+        trie.put(product(2, "Lantern"), 20);
+        trie.put(product(3, "Laptop"), 10);
+
+        trie.remove("product", 1L);
+
+        assertThat(ids(trie.lookup("la", 5))).containsExactly(2L, 3L);
+        assertThat(trie.lookup("lamp", 5)).isEmpty();
+        assertThat(trie.score("product", 1L)).isNull();
+    }
+
+    @Test
+    void rescoringAnEntryReordersIt() {
+        SuggestionTrie trie = new SuggestionTrie(2);
+        trie.put(product(1, "Mug"), 1);
+        trie.put(product(2, "Mug warmer"), 5);
+        trie.put(product(3, "Music box"), 3);
+
+        trie.put(product(1, "Mug"), 10);
+
+        assertThat(ids(trie.lookup("mu", 5))).containsExactly(1L, 2L);
+        assertThat(trie.score("product", 1L)).isEqualTo(10L);
+    }
+}
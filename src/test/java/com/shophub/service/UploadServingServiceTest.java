@@ -0,0 +1,73 @@
+package com.shophub.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Cache-Control for ?w= requests: immutable unless the file served could still change for that URL
+class UploadServingServiceTest {
+
+    private static final String UUID_NAME = "0f8fad5b-d9cb-469f-a165-70867728950e";
+
+    @TempDir
+    Path root;
+
+    private final ImageDerivativeService derivativeService = new ImageDerivativeService(1, 10, 40_000_000L, 10_000L, 100);
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        derivativeService.shutdown();
+    }
+
+    @Test
+    void originalNarrowerThanTheRequestedWidthIsImmutable() throws IOException {
+        image(UUID_NAME + ".jpg", 150);
+
+        MockHttpServletResponse response = serve(UUID_NAME + ".jpg", "480");
+
+        assertThat(response.getContentLengthLong()).isPositive();
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).contains("immutable");
+    }
+
+    @Test
+    void generatedVariantIsImmutable() throws IOException {
+        image(UUID_NAME + ".jpg", 1200);
+
+        MockHttpServletResponse response = serve(UUID_NAME + ".jpg", "480");
+
+        assertThat(root.resolve(UUID_NAME + ".w480.jpg")).exists();
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).contains("immutable");
+    }
+
+    @Test
+    void legacyNamesAlwaysRevalidate() throws IOException {
+        image("banner.jpg", 150);
+
+        MockHttpServletResponse response = serve("banner.jpg", "480");
+
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).contains("no-cache").doesNotContain("immutable");
+    }
+
+    private MockHttpServletResponse serve(String path, String width) throws IOException {
+        UploadServingService service = new UploadServingService(root.toString(), derivativeService, 49152, 100);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/" + path);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        service.serve(path, width, request, response);
+        return response;
+    }
+
+    private void image(String name, int width) throws IOException {
+        BufferedImage image = new BufferedImage(width, width / 2, BufferedImage.TYPE_INT_RGB);
+        ImageIO.write(image, "jpg", root.resolve(name).toFile());
+    }
+}